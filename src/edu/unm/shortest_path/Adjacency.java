@@ -0,0 +1,30 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * The edges of a CompactWordGraph.  Words are numbered from 0 and each word's neighbors are kept sorted by id.
+ * PlainAdjacency stores them as int arrays and CompressedAdjacency as delta encoded bytes.
+ */
+
+package edu.unm.shortest_path;
+
+public interface Adjacency
+{
+  int nodeCount();
+
+  /*
+   * The number of neighbor entries.  Every edge is stored once in each direction.
+   */
+  long edgeCount();
+
+  int degree(final int node);
+
+  /*
+   * Approximate memory used by the arrays holding the edges.
+   */
+  long sizeInBytes();
+
+  /*
+   * Returns a new cursor over these edges.  Create one per search, not one per word.
+   */
+  NeighborCursor cursor();
+}
@@ -0,0 +1,140 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Compares PlainAdjacency and CompressedAdjacency on one dictionary: the bytes each uses per edge, the time to
+ * decode every neighbor of every word, the time to skip to neighbors with advance, and the time of shortest path
+ * queries between random pairs of words.
+ *
+ * Usage: AdjacencyBenchmark <dictionary> [queries] [seed]
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Random;
+
+public class AdjacencyBenchmark
+{
+  private static final int ROUNDS = 10; //Each timing is the best of this many rounds
+
+  public static void main(String[] args)
+  {
+    if (args.length < 1)
+    {
+      System.out.println("Usage: AdjacencyBenchmark <dictionary> [queries] [seed]");
+      return;
+    }
+    int queries = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+    long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42L;
+
+    long before = System.nanoTime();
+    CompactWordGraph graph = new CompactWordGraph(args[0], true);
+    System.out.format("Loaded %d words and built compressed edges in %.1f ms%n", graph.size(),
+        (System.nanoTime() - before) / 1e6);
+    Adjacency compressed = graph.getAdjacency();
+    before = System.nanoTime();
+    Adjacency plain = graph.buildAdjacency(new PlainAdjacency.Builder(graph.size()));
+    System.out.format("Built plain edges in %.1f ms%n", (System.nanoTime() - before) / 1e6);
+
+    System.out.format("%-12s %12s %14s %12s %14s %14s%n", "format", "edges", "bytes", "bytes/edge", "scan ns/edge",
+        "advance ns/op");
+    report("plain", plain);
+    report("compressed", compressed);
+
+    if (graph.size() > 0)
+    {
+      System.out.format("Queries over compressed edges: %.1f us average%n", queryMicros(graph, queries, seed));
+    }
+  }
+
+  private static void report(final String name, final Adjacency adjacency)
+  {
+    long edges = adjacency.edgeCount();
+    System.out.format("%-12s %12d %14d %12.2f %14.2f %14.2f%n", name, edges, adjacency.sizeInBytes(),
+        (double)adjacency.sizeInBytes() / Math.max(1, edges), scanNanos(adjacency) / Math.max(1, edges),
+        advanceNanos(adjacency));
+  }
+
+  /*
+   * Returns the best time, over ROUNDS rounds, of decoding every neighbor of every word.
+   */
+  private static double scanNanos(final Adjacency adjacency)
+  {
+    NeighborCursor cursor = adjacency.cursor();
+    long best = Long.MAX_VALUE;
+    long sum = 0;
+    for (int round = 0; round < ROUNDS; round++)
+    {
+      long start = System.nanoTime();
+      for (int node = 0; node < adjacency.nodeCount(); node++)
+      {
+        cursor.reset(node);
+        for (int next = cursor.next(); next >= 0; next = cursor.next())
+        {
+          sum += next;
+        }
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    if (sum == 42)
+    {
+      System.out.print(""); //Keeps the loop from being optimized away
+    }
+    return best;
+  }
+
+  /*
+   * Returns the best time, over ROUNDS rounds, per call of advance to the last neighbor of each word, the case the
+   * skip index is for.
+   */
+  private static double advanceNanos(final Adjacency adjacency)
+  {
+    NeighborCursor cursor = adjacency.cursor();
+    int[] last = new int[adjacency.nodeCount()];
+    for (int node = 0; node < last.length; node++)
+    {
+      last[node] = -1;
+      cursor.reset(node);
+      for (int next = cursor.next(); next >= 0; next = cursor.next())
+      {
+        last[node] = next;
+      }
+    }
+    long best = Long.MAX_VALUE;
+    long calls = 0;
+    for (int round = 0; round < ROUNDS; round++)
+    {
+      calls = 0;
+      long start = System.nanoTime();
+      for (int node = 0; node < last.length; node++)
+      {
+        if (last[node] >= 0)
+        {
+          cursor.reset(node);
+          if (cursor.advance(last[node]) != last[node])
+          {
+            throw new IllegalStateException("advance missed neighbor " + last[node] + " of " + node);
+          }
+          calls++;
+        }
+      }
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    return (double)best / Math.max(1, calls);
+  }
+
+  private static double queryMicros(final CompactWordGraph graph, final int queries, final long seed)
+  {
+    Random random = new Random(seed);
+    QueryOptions options = new QueryOptions();
+    long total = 0;
+    for (int i = 0; i < queries; i++)
+    {
+      String start = graph.getWord(random.nextInt(graph.size()));
+      String end = graph.getWord(random.nextInt(graph.size()));
+      long before = System.nanoTime();
+      ShortestPath.findShortestPath(start, end, graph, options);
+      total += System.nanoTime() - before;
+    }
+    return total / 1e3 / Math.max(1, queries);
+  }
+}
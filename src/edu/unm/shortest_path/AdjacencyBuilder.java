@@ -0,0 +1,26 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * Builds an Adjacency one word at a time.  CompactWordGraph hands every word's neighbors to the builder in id
+ * order, so the builder never needs to hold more than the edges already added.
+ */
+
+package edu.unm.shortest_path;
+
+public interface AdjacencyBuilder
+{
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int[] neighbors: The ids of the next word's neighbors, sorted and without duplicates
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Adds the neighbors of the next word.  The first call is for word 0, the second for word 1 and so on.
+   */
+  void add(final int[] neighbors);
+
+  Adjacency build();
+}
@@ -0,0 +1,279 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Every shortest path between two words of an IndexedWordGraph.  One breadth first search finds how far each word
+ * is from the start word, and the words on some shortest path are then gathered into layers by distance, each
+ * with the words of the layer before it that it is connected to.  Those links form a small graph with no cycles
+ * whose paths from the end word back to the start word are exactly the shortest paths.
+ *
+ * The number of paths is counted over the layers without listing them, and the paths themselves are produced
+ * one at a time, always in the same order, by iterator and stream.
+ */
+
+package edu.unm.shortest_path;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class AllShortestPaths implements Iterable<List<String>>
+{
+  private static final int[] NONE = new int[0];
+
+  private final IndexedWordGraph GRAPH;
+  private final SearchResult RESULT; //The search that found the distance, with one of the shortest paths
+  private final int SOURCE;
+  private final int TARGET;
+  private final HashMap<Integer, int[]> predecessors; //Word on a shortest path to its neighbors one move closer to the start word
+  private final int[][] layers; //layers[d] holds the words on a shortest path d moves from the start word
+  private BigInteger count; //Computed the first time it is asked for
+
+  private AllShortestPaths(final IndexedWordGraph graph, final SearchResult result, final int source,
+      final int target, final HashMap<Integer, int[]> predecessors, final int[][] layers)
+  {
+    this.GRAPH = graph;
+    this.RESULT = result;
+    this.SOURCE = source;
+    this.TARGET = target;
+    this.predecessors = predecessors;
+    this.layers = layers;
+    this.count = null;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start from
+   *     String end: The word to find the shortest paths to
+   *     IndexedWordGraph graph: The graph of connected words to search through
+   *     QueryOptions options: The limits of the search
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The shortest paths between the two words, none unless the search's status is FOUND
+   * Description:
+   *   Runs the search of ShortestPath.findShortestPath with a scratch of its own that records distances, and
+   *   builds the layers of every shortest path from the distances it left behind.
+   * Algorithm:
+   *   The search stops as soon as it reaches the end word, d moves from the start word.  By then every word fewer
+   *   than d moves away has been given its distance.  Starting from the end word, the neighbors of each word that
+   *   are one move closer to the start word are its predecessors, and each predecessor not seen before joins the
+   *   layer before.  Only words on a shortest path are ever visited this way.
+   */
+  public static AllShortestPaths find(final String start, final String end, final IndexedWordGraph graph,
+      final QueryOptions options)
+  {
+    BfsScratch scratch = new BfsScratch(true);
+    SearchResult result = ShortestPath.search(start, end, graph, options, scratch);
+    HashMap<Integer, int[]> predecessors = new HashMap<>();
+    if (!result.isFound())
+    {
+      return new AllShortestPaths(graph, result, -1, -1, predecessors, new int[0][]);
+    }
+    int source = graph.indexOf(start);
+    int target = graph.indexOf(end);
+    int distance = result.getPath().size() - 1;
+    int[][] layers = new int[distance + 1][];
+    layers[distance] = new int[] {target};
+    NeighborCursor cursor = graph.getAdjacency().cursor();
+    int[] found = new int[16];
+    for (int d = distance; d > 0; d--)
+    {
+      ArrayList<Integer> previous = new ArrayList<>();
+      for (int node: layers[d])
+      {
+        int kept = 0;
+        cursor.reset(node);
+        for (int next = cursor.next(); next >= 0; next = cursor.next())
+        {
+          if (scratch.isVisited(next) && scratch.getDepth(next) == d - 1)
+          {
+            if (kept == found.length)
+            {
+              found = Arrays.copyOf(found, kept * 2);
+            }
+            found[kept++] = next;
+            if (d > 1 && !predecessors.containsKey(next))
+            {
+              predecessors.put(next, NONE);
+              previous.add(next);
+            }
+          }
+        }
+        predecessors.put(node, Arrays.copyOf(found, kept));
+      }
+      layers[d - 1] = (d > 1) ? previous.stream().mapToInt(Integer::intValue).toArray() : new int[] {source};
+    }
+    predecessors.put(source, NONE);
+    return new AllShortestPaths(graph, result, source, target, predecessors, layers);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     None
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The number of shortest paths, 0 unless the search found the end word
+   * Description:
+   *   Counts the paths without listing them.
+   * Algorithm:
+   *   The start word has one path to itself, and every other word on a shortest path has the sum of the paths of
+   *   its predecessors.  Layers are summed in order of distance so each predecessor is done before it is used.
+   *   Counts are BigIntegers because they can grow exponentially with the distance.
+   */
+  public synchronized BigInteger count()
+  {
+    if (count != null)
+    {
+      return count;
+    }
+    if (!RESULT.isFound())
+    {
+      count = BigInteger.ZERO;
+      return count;
+    }
+    HashMap<Integer, BigInteger> paths = new HashMap<>();
+    paths.put(SOURCE, BigInteger.ONE);
+    for (int d = 1; d < layers.length; d++)
+    {
+      for (int node: layers[d])
+      {
+        BigInteger sum = BigInteger.ZERO;
+        for (int previous: predecessors.get(node))
+        {
+          sum = sum.add(paths.get(previous));
+        }
+        paths.put(node, sum);
+      }
+    }
+    count = paths.get(TARGET);
+    return count;
+  }
+
+  /*
+   * The number of moves in each shortest path, or -1 if there is none.
+   */
+  public int getLength()
+  {
+    return layers.length - 1;
+  }
+  public SearchResult getResult()
+  {
+    return this.RESULT;
+  }
+
+  /*
+   * Returns an iterator over the shortest paths, each a list of words from the start word to the end word.  Each
+   * path is built when next is called and only the current path is held.
+   */
+  @Override
+  public Iterator<List<String>> iterator()
+  {
+    if (!RESULT.isFound())
+    {
+      return Collections.<List<String>>emptyIterator();
+    }
+    return new PathIterator();
+  }
+
+  public Stream<List<String>> stream()
+  {
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+  }
+
+  /*
+   * Walks the predecessor links depth first from the end word.  nodes[d] is the word d moves from the start word
+   * on the current path and choice[d] which predecessor of nodes[d + 1] it is.  Reaching the start word completes
+   * a path.  Moving on backtracks to the deepest word that has another predecessor left and follows the first
+   * predecessors from there back to the start word.  Every word followed leads back to the start word, so no step
+   * is wasted on dead ends.
+   */
+  private class PathIterator implements Iterator<List<String>>
+  {
+    private final int[] nodes;
+    private final int[] choice;
+    private boolean ready; //True when nodes holds a path not yet returned
+    private boolean done;
+
+    PathIterator()
+    {
+      int length = getLength();
+      nodes = new int[length + 1];
+      choice = new int[length + 1];
+      nodes[length] = TARGET;
+      descend(length);
+      ready = true;
+      done = false;
+    }
+
+    /*
+     * Follows first predecessors from nodes[d] down to the start word.
+     */
+    private void descend(final int d)
+    {
+      for (int i = d; i > 0; i--)
+      {
+        choice[i - 1] = 0;
+        nodes[i - 1] = predecessors.get(nodes[i])[0];
+      }
+    }
+
+    /*
+     * Moves to the next path, or sets done if there is none.
+     */
+    private void advance()
+    {
+      for (int i = 0; i < nodes.length - 1; i++)
+      {
+        int[] candidates = predecessors.get(nodes[i + 1]);
+        if (choice[i] + 1 < candidates.length)
+        {
+          choice[i]++;
+          nodes[i] = candidates[choice[i]];
+          descend(i);
+          return;
+        }
+      }
+      done = true;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+      if (!ready && !done)
+      {
+        advance();
+        ready = !done;
+      }
+      return ready;
+    }
+
+    @Override
+    public List<String> next()
+    {
+      if (!hasNext())
+      {
+        throw new NoSuchElementException();
+      }
+      ready = false;
+      List<String> path = new ArrayList<>(nodes.length);
+      for (int node: nodes)
+      {
+        path.add(GRAPH.getWord(node));
+      }
+      return path;
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * This class runs shortest path queries against a WordGraph on an executor and hands back CompletableFutures.
+ * The number of queries waiting or running at once is bounded, and a producer that submits faster than the
+ * queries complete is made to wait (submit), turned away (trySubmit), or can watch getAvailable to slow itself.
+ * Streams of word pairs can be fed through a QueryProcessor instead.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class AsyncShortestPath implements AutoCloseable
+{
+  private final WordGraph GRAPH;
+  private final ExecutorService EXECUTOR;
+  private final boolean OWNS_EXECUTOR; //True when the executor was created here and must be shut down by close
+  private final int CAPACITY; //The most queries that may be waiting or running at once
+  private final Semaphore permits;
+  
+  /*
+   * Runs queries on a fixed pool of threads that is shut down by close.
+   */
+  public AsyncShortestPath(final WordGraph graph, final int capacity, final int threads)
+  {
+    this(graph, capacity, Executors.newFixedThreadPool(threads), true);
+  }
+  
+  /*
+   * Runs queries on the given executor, which the caller keeps ownership of.  On Java 21 and later this can be
+   * Executors.newVirtualThreadPerTaskExecutor(), since the capacity, not the executor, bounds the queries in flight.
+   */
+  public AsyncShortestPath(final WordGraph graph, final int capacity, final ExecutorService executor)
+  {
+    this(graph, capacity, executor, false);
+  }
+  
+  private AsyncShortestPath(final WordGraph graph, final int capacity, final ExecutorService executor,
+      final boolean ownsExecutor)
+  {
+    if (capacity < 1)
+    {
+      throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+    }
+    this.GRAPH = graph;
+    this.EXECUTOR = executor;
+    this.OWNS_EXECUTOR = ownsExecutor;
+    this.CAPACITY = capacity;
+    this.permits = new Semaphore(capacity);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start searching from
+   *     String end: The word to find the shortest path to
+   *     QueryOptions options: The limits of the search
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   A future completed with the SearchResult of the query
+   * Description:
+   *   Queues the query, waiting for room if CAPACITY queries are already waiting or running.
+   */
+  public CompletableFuture<SearchResult> submit(final String start, final String end, final QueryOptions options)
+      throws InterruptedException
+  {
+    permits.acquire();
+    return run(start, end, options);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start searching from
+   *     String end: The word to find the shortest path to
+   *     QueryOptions options: The limits of the search
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   A future completed with the SearchResult of the query, or null if there was no room for it
+   * Description:
+   *   Queues the query only if fewer than CAPACITY queries are waiting or running.
+   */
+  public CompletableFuture<SearchResult> trySubmit(final String start, final String end, final QueryOptions options)
+  {
+    if (!permits.tryAcquire())
+    {
+      return null;
+    }
+    return run(start, end, options);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start searching from
+   *     String end: The word to find the shortest path to
+   *     QueryOptions options: The limits of the search
+   *     long timeout: How long to wait for room
+   *     TimeUnit unit: The unit of timeout
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   A future completed with the SearchResult of the query, or null if no room was made before the timeout
+   * Description:
+   *   Queues the query, waiting up to the timeout for room.
+   */
+  public CompletableFuture<SearchResult> trySubmit(final String start, final String end, final QueryOptions options,
+      final long timeout, final TimeUnit unit) throws InterruptedException
+  {
+    if (!permits.tryAcquire(timeout, unit))
+    {
+      return null;
+    }
+    return run(start, end, options);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start searching from
+   *     String end: The word to find the shortest path to
+   *     QueryOptions options: The limits of the search
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   A future completed with the SearchResult of the query
+   * Description:
+   *   Runs the query on the executor.  The caller already holds a permit, which is released when the query ends.
+   *   Cancelling the future stops the search at its next check.
+   * Algorithm:
+   *   The permit is released before the future is completed so that code waiting on the future can submit the
+   *   next query from the same thread without deadlocking.  A future cancelled before its query starts skips the
+   *   search.  The query searches with a copy of the options holding a token of its own, which the future cancels
+   *   when it is cancelled and which is also cancelled by the caller's token, so that options shared between
+   *   queries are neither changed nor cancelled for the other queries.
+   */
+  private CompletableFuture<SearchResult> run(final String start, final String end, final QueryOptions options)
+  {
+    CancellationToken token = new CancellationToken(options.getCancellationToken());
+    QueryOptions queryOptions = new QueryOptions(options);
+    queryOptions.setCancellationToken(token);
+    CompletableFuture<SearchResult> future = new CompletableFuture<>();
+    future.whenComplete((result, failure) ->
+    {
+      if (future.isCancelled())
+      {
+        token.cancel();
+      }
+    });
+    try
+    {
+      EXECUTOR.execute(() ->
+      {
+        if (future.isDone())
+        {
+          permits.release();
+          return;
+        }
+        SearchResult result = null;
+        Throwable failure = null;
+        try
+        {
+          result = ShortestPath.findShortestPath(start, end, GRAPH, queryOptions);
+        }
+        catch (RuntimeException | Error e)
+        {
+          failure = e;
+        }
+        permits.release();
+        if (failure == null)
+        {
+          future.complete(result);
+        }
+        else
+        {
+          future.completeExceptionally(failure);
+        }
+      });
+    }
+    catch (RejectedExecutionException e)
+    {
+      permits.release();
+      throw e;
+    }
+    return future;
+  }
+  
+  /*
+   * Returns a processor that searches each WordPair it receives with the given options and publishes the results.
+   */
+  public QueryProcessor processor(final QueryOptions options)
+  {
+    return new QueryProcessor(this, options, CAPACITY);
+  }
+  
+  /*
+   * The number of queries that could be submitted right now without waiting.
+   */
+  public int getAvailable()
+  {
+    return permits.availablePermits();
+  }
+  public int getCapacity()
+  {
+    return this.CAPACITY;
+  }
+  public int getInFlight()
+  {
+    return CAPACITY - permits.availablePermits();
+  }
+  
+  /*
+   * Stops accepting queries, so later submits throw RejectedExecutionException.  Queries already submitted still
+   * complete.  An executor passed in by the caller is left running.
+   */
+  @Override
+  public void close()
+  {
+    if (OWNS_EXECUTOR)
+    {
+      EXECUTOR.shutdown();
+    }
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * The arrays a breadth first search over a CompactWordGraph needs, kept between searches so a query does not
+ * allocate arrays the size of the dictionary.  Instead of clearing the visited marks after each search, every
+ * search gets a new epoch and a word counts as visited only if its mark equals the current epoch.  The distance of
+ * each word from the start word is kept only by scratches made to record it, since only AllShortestPaths needs it.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Arrays;
+
+class BfsScratch
+{
+  private int[] mark;
+  private int[] parent;
+  private int[] depth; //Moves from the start word, null unless recorded
+  private int[] queue;
+  private int epoch;
+  
+  BfsScratch(final boolean recordDepth)
+  {
+    mark = new int[0];
+    parent = new int[0];
+    depth = recordDepth ? new int[0] : null;
+    queue = new int[0];
+    epoch = 0;
+  }
+  
+  /*
+   * Starts a new search over a graph of nodeCount words, growing the arrays if the graph is larger than any seen.
+   */
+  void begin(final int nodeCount)
+  {
+    if (mark.length < nodeCount)
+    {
+      mark = new int[nodeCount];
+      parent = new int[nodeCount];
+      depth = (depth == null) ? null : new int[nodeCount];
+      queue = new int[nodeCount];
+      epoch = 0;
+    }
+    epoch++;
+    if (epoch == Integer.MAX_VALUE)
+    {
+      Arrays.fill(mark, 0);
+      epoch = 1;
+    }
+  }
+  
+  /*
+   * Marks node as visited from the word from, d moves from the start word, recording d if depths are recorded.
+   * Returns false if it was already visited in this search.
+   */
+  boolean visit(final int node, final int from, final int d)
+  {
+    if (mark[node] == epoch)
+    {
+      return false;
+    }
+    mark[node] = epoch;
+    parent[node] = from;
+    if (depth != null)
+    {
+      depth[node] = d;
+    }
+    return true;
+  }
+  
+  boolean isVisited(final int node)
+  {
+    return mark[node] == epoch;
+  }
+  int getDepth(final int node)
+  {
+    return depth[node];
+  }
+  int getParent(final int node)
+  {
+    return parent[node];
+  }
+  int[] getQueue()
+  {
+    return queue;
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * A flag shared between a running search and the code that started it.  Cancelling the token asks the search
+ * to stop at its next check, which it reports as a CANCELLED result.
+ */
+
+package edu.unm.shortest_path;
+
+public class CancellationToken
+{
+  private final CancellationToken PARENT; //A token whose cancellation also cancels this one, or null
+  private volatile boolean cancelled;
+  
+  public CancellationToken()
+  {
+    this(null);
+  }
+  
+  /*
+   * A token that is cancelled either by its own cancel or by cancelling parent, which may be null.  Cancelling
+   * it leaves parent alone.
+   */
+  public CancellationToken(final CancellationToken parent)
+  {
+    this.PARENT = parent;
+    cancelled = false;
+  }
+  
+  public void cancel()
+  {
+    this.cancelled = true;
+  }
+  public boolean isCancelled()
+  {
+    return this.cancelled || (PARENT != null && PARENT.isCancelled());
+  }
+}
@@ -0,0 +1,292 @@
+/*
+ * Nicholas Spurlock
+ *
+ * A graph of words for dictionaries too large for WordGraph.  Words are numbered by length and then alphabetically
+ * and kept in one String array, and the edges are kept in an Adjacency of ids instead of lists of WordNodes.
+ * Edges are found by trying every one letter edit of each word (see OneLetterEdits) and looking the result up,
+ * rather than comparing each word against every word of a neighboring length.
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+public class CompactWordGraph implements IndexedWordGraph, WordSink
+{
+  private static final int BATCH_SIZE = 1 << 16; //Words whose neighbors are found in parallel before being handed to the builder
+
+  private String[] words;
+  private int[] lengthStart; //lengthStart[l] is the id of the first word of length l, lengthStart[l + 1] one past the last
+  private int wordCount;
+  private BitSet letters; //Every character that appears in the dictionary
+  private char[] alphabet;
+  private Adjacency adjacency;
+
+  /*
+   * Loads the dictionary and builds its edges as a CompressedAdjacency when compressed is true, otherwise as a
+   * PlainAdjacency.
+   */
+  public CompactWordGraph(final String dictionaryPath, final boolean compressed)
+  {
+    this(dictionaryPath, compressed, DictionaryLoader.DEFAULT_MAX_WORD_LENGTH);
+  }
+
+  /*
+   * Like the constructor above, but lines of the dictionary longer than maxWordLength characters are skipped
+   * instead of DictionaryLoader.DEFAULT_MAX_WORD_LENGTH.
+   */
+  public CompactWordGraph(final String dictionaryPath, final boolean compressed, final int maxWordLength)
+  {
+    this(dictionaryPath, 1, Integer.MAX_VALUE, maxWordLength);
+    buildEdges(compressed);
+  }
+
+  /*
+   * Like the constructor, but throws the IOException if the dictionary cannot be read, rather than printing it and
+   * returning an empty graph.
+   */
+  public static CompactWordGraph load(final String dictionaryPath, final boolean compressed) throws IOException
+  {
+    CompactWordGraph graph = new CompactWordGraph();
+    graph.readWords(dictionaryPath, 1, Integer.MAX_VALUE, DictionaryLoader.DEFAULT_MAX_WORD_LENGTH);
+    graph.buildEdges(compressed);
+    return graph;
+  }
+
+  /*
+   * Loads only the words of the dictionary with lengths from minLength to maxLength, numbered from 0 in the same
+   * order as in the whole graph.  getAdjacency returns null, and the edges of some or all of the words can be
+   * built with buildAdjacency without being kept by the graph.
+   */
+  CompactWordGraph(final String dictionaryPath, final int minLength, final int maxLength)
+  {
+    this(dictionaryPath, minLength, maxLength, DictionaryLoader.DEFAULT_MAX_WORD_LENGTH);
+  }
+
+  private CompactWordGraph(final String dictionaryPath, final int minLength, final int maxLength,
+      final int maxWordLength)
+  {
+    this();
+    generateGraph(dictionaryPath, minLength, maxLength, maxWordLength);
+  }
+
+  private CompactWordGraph()
+  {
+    words = new String[0];
+    lengthStart = new int[] {0, 0};
+    wordCount = 0;
+    letters = new BitSet();
+    adjacency = null;
+  }
+
+  private void buildEdges(final boolean compressed)
+  {
+    AdjacencyBuilder builder = compressed ? new CompressedAdjacency.Builder(wordCount)
+        : new PlainAdjacency.Builder(wordCount);
+    adjacency = buildAdjacency(builder);
+  }
+
+  char[] getAlphabet()
+  {
+    return this.alphabet;
+  }
+  @Override
+  public Adjacency getAdjacency()
+  {
+    return this.adjacency;
+  }
+  @Override
+  public int size()
+  {
+    return this.wordCount;
+  }
+  @Override
+  public String getWord(final int id)
+  {
+    return this.words[id];
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String word: The word to look up
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The id of the word, or -1 if it is not in the dictionary
+   * Description:
+   *   Lowercases the word and binary searches the words of its length.
+   */
+  @Override
+  public int indexOf(final String word)
+  {
+    char[] w = word.toLowerCase(Locale.ROOT).toCharArray();
+    return find(w, w.length);
+  }
+
+  @Override
+  public void initBuckets(final int[] bucketSizes)
+  {
+    lengthStart = new int[bucketSizes.length + 1];
+    for (int i = 0; i < bucketSizes.length; i++)
+    {
+      lengthStart[i + 1] = lengthStart[i] + bucketSizes[i];
+    }
+    words = new String[lengthStart[bucketSizes.length]];
+  }
+
+  @Override
+  public void addWord(final String word)
+  {
+    words[wordCount++] = word;
+    for (int i = 0; i < word.length(); i++)
+    {
+      letters.set(word.charAt(i));
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     AdjacencyBuilder builder: The builder that stores the edges
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The Adjacency built from every word's neighbors
+   * Description:
+   *   Finds the neighbors of every word and hands them to the builder in id order.
+   * Algorithm:
+   *   Words are taken in batches.  The neighbors of the words in a batch are found in parallel, then handed to the
+   *   builder in order before the next batch is started, so only one batch of neighbor lists exists at a time.
+   */
+  public Adjacency buildAdjacency(final AdjacencyBuilder builder)
+  {
+    return buildAdjacency(builder, 0, wordCount, 0);
+  }
+
+  /*
+   * Builds the edges of only the words with ids from first up to last.  Node k of the result holds the neighbors of
+   * word first + k, with offset added to every neighbor's id.
+   */
+  Adjacency buildAdjacency(final AdjacencyBuilder builder, final int first, final int last, final int offset)
+  {
+    for (int batchStart = first; batchStart < last; batchStart += BATCH_SIZE)
+    {
+      final int from = batchStart;
+      int to = Math.min(last, batchStart + BATCH_SIZE);
+      int[][] lists = new int[to - from][];
+      IntStream.range(from, to).parallel().forEach(id -> lists[id - from] =
+          OneLetterEdits.neighbors(words[id], alphabet, this::find));
+      for (int[] list: lists)
+      {
+        if (offset != 0)
+        {
+          for (int i = 0; i < list.length; i++)
+          {
+            list[i] += offset;
+          }
+        }
+        builder.add(list);
+      }
+    }
+    return builder.build();
+  }
+
+  /*
+   * The id of the first word at least length letters long, or size() if there is none.
+   */
+  int firstOfLength(final int length)
+  {
+    return lengthStart[Math.max(0, Math.min(length, lengthStart.length - 1))];
+  }
+
+  /*
+   * Binary searches the words of the given length for the first length characters of word.
+   */
+  int find(final char[] word, final int length)
+  {
+    if (length < 1 || length + 1 >= lengthStart.length)
+    {
+      return -1;
+    }
+    int lo = lengthStart[length];
+    int hi = lengthStart[length + 1] - 1;
+    while (lo <= hi)
+    {
+      int mid = (lo + hi) >>> 1;
+      String candidate = words[mid];
+      int cmp = 0;
+      for (int i = 0; i < length && cmp == 0; i++)
+      {
+        cmp = candidate.charAt(i) - word[i];
+      }
+      if (cmp < 0)
+      {
+        lo = mid + 1;
+      }
+      else if (cmp > 0)
+      {
+        hi = mid - 1;
+      }
+      else
+      {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: The path to the dictionary
+   *     int minLength: The length of the shortest words to read
+   *     int maxLength: The length of the longest words to read
+   *     int maxWordLength: The length of the longest line taken as a word
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Reads the words of the dictionary with readWords, printing the error and leaving the graph empty if it cannot
+   *   be read.
+   */
+  private void generateGraph(final String path, final int minLength, final int maxLength, final int maxWordLength)
+  {
+    try
+    {
+      readWords(path, minLength, maxLength, maxWordLength);
+    }
+    catch (IOException e)
+    {
+      System.err.println("Failed to open dictionary at " + path + ".");
+      e.printStackTrace();
+    }
+  }
+
+  /*
+   * Reads the words of the dictionary and collects the alphabet they use, which is empty if the dictionary could
+   * not be read.
+   */
+  private void readWords(final String path, final int minLength, final int maxLength, final int maxWordLength)
+      throws IOException
+  {
+    try
+    {
+      DictionaryLoader.load(path, this, minLength, maxLength, maxWordLength);
+    }
+    finally
+    {
+      alphabet = new char[letters.cardinality()];
+      int i = 0;
+      for (int c = letters.nextSetBit(0); c >= 0; c = letters.nextSetBit(c + 1))
+      {
+        alphabet[i++] = (char)c;
+      }
+      letters = null;
+    }
+  }
+}
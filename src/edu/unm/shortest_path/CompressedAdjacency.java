@@ -0,0 +1,275 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Stores the neighbors of every word as variable length deltas in one byte array.  Each word's neighbor list is
+ * its degree, the distance from the word's own id to its first neighbor, and then the gap to each following id.
+ * Every number is written 7 bits to a byte with the high bit marking that more bytes follow, and the first
+ * distance, which may be negative, is zigzag encoded.  Neighbor ids of a word are close together, since words are
+ * numbered by length and then alphabetically, so most gaps fit in one or two bytes.
+ *
+ * Words with more than BLOCK_SIZE neighbors also get a skip index: the id and position of every BLOCK_SIZE'th
+ * neighbor, so NeighborCursor.advance can jump over whole blocks instead of decoding every gap.  The index of the
+ * word's first skip entry is written right after its degree, so words without one pay nothing for it.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Arrays;
+
+public class CompressedAdjacency implements Adjacency
+{
+  public static final int BLOCK_SIZE = 32; //Neighbors between entries of the skip index
+
+  private final byte[] DATA;
+  private final int[] OFFSETS; //OFFSETS[i] is where word i's neighbor list begins in DATA
+  private final int[] SKIP_IDS; //The id of neighbor BLOCK_SIZE * k of a word
+  private final int[] SKIP_OFFSETS; //Where the gap after that neighbor begins in DATA
+  private final long EDGES;
+
+  private CompressedAdjacency(final byte[] data, final int[] offsets, final int[] skipIds, final int[] skipOffsets,
+      final long edges)
+  {
+    this.DATA = data;
+    this.OFFSETS = offsets;
+    this.SKIP_IDS = skipIds;
+    this.SKIP_OFFSETS = skipOffsets;
+    this.EDGES = edges;
+  }
+
+  @Override
+  public int nodeCount()
+  {
+    return OFFSETS.length - 1;
+  }
+  @Override
+  public long edgeCount()
+  {
+    return EDGES;
+  }
+  @Override
+  public int degree(final int node)
+  {
+    int pos = OFFSETS[node];
+    int value = 0;
+    int shift = 0;
+    byte b;
+    do
+    {
+      b = DATA[pos++];
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    return value;
+  }
+  @Override
+  public long sizeInBytes()
+  {
+    return DATA.length + 4L * OFFSETS.length + 4L * SKIP_IDS.length + 4L * SKIP_OFFSETS.length;
+  }
+  @Override
+  public NeighborCursor cursor()
+  {
+    return new Cursor();
+  }
+
+  private class Cursor implements NeighborCursor
+  {
+    private final byte[] data = DATA;
+    private final int[] offsets = OFFSETS;
+    private final int[] skipIds = SKIP_IDS;
+    private final int[] skipOffsets = SKIP_OFFSETS;
+    private int node;
+    private int pos; //Position in data of the next gap
+    private int index; //Number of neighbors already returned
+    private int degree;
+    private int skipStart; //Index of the word's first skip entry, meaningful only when degree > BLOCK_SIZE
+    private int current; //The last neighbor returned
+
+    @Override
+    public void reset(final int n)
+    {
+      node = n;
+      pos = offsets[n];
+      degree = readVarint();
+      skipStart = (degree > BLOCK_SIZE) ? readVarint() : 0;
+      index = 0;
+      current = 0;
+    }
+
+    /*
+     * Decodes the gap at pos and adds it to the last neighbor.  The first neighbor is decoded from its distance
+     * to the word's own id.
+     */
+    @Override
+    public int next()
+    {
+      if (index == degree)
+      {
+        return -1;
+      }
+      if (index == 0)
+      {
+        int zigzag = readVarint();
+        current = node + ((zigzag >>> 1) ^ -(zigzag & 1));
+      }
+      else
+      {
+        current += readVarint();
+      }
+      index++;
+      return current;
+    }
+
+    /*
+     * Binary searches the skip index of the word for the last block starting at or before target.  If that block
+     * is ahead of the cursor the cursor jumps to it, and the rest of the way is decoded one gap at a time.
+     */
+    @Override
+    public int advance(final int target)
+    {
+      if (degree > BLOCK_SIZE)
+      {
+        int lo = skipStart;
+        int hi = skipStart + (degree - 1) / BLOCK_SIZE - 1;
+        int best = -1;
+        while (lo <= hi)
+        {
+          int mid = (lo + hi) >>> 1;
+          if (skipIds[mid] <= target)
+          {
+            best = mid;
+            lo = mid + 1;
+          }
+          else
+          {
+            hi = mid - 1;
+          }
+        }
+        if (best >= 0)
+        {
+          int blockIndex = (best - skipStart + 1) * BLOCK_SIZE;
+          if (blockIndex >= index)
+          {
+            current = skipIds[best];
+            pos = skipOffsets[best];
+            index = blockIndex + 1;
+            if (current == target)
+            {
+              return current;
+            }
+          }
+        }
+      }
+      int v;
+      while ((v = next()) != -1 && v < target)
+      {
+        //Skip neighbors before target
+      }
+      return v;
+    }
+
+    private int readVarint()
+    {
+      byte b = data[pos++];
+      if (b >= 0)
+      {
+        return b;
+      }
+      int value = b & 0x7F;
+      int shift = 7;
+      do
+      {
+        b = data[pos++];
+        value |= (b & 0x7F) << shift;
+        shift += 7;
+      } while (b < 0);
+      return value;
+    }
+  }
+
+  public static class Builder implements AdjacencyBuilder
+  {
+    private byte[] data;
+    private int size;
+    private int[] offsets;
+    private int[] skipIds;
+    private int[] skipOffsets;
+    private int skips;
+    private int nodes;
+    private long edges;
+
+    public Builder(final int nodeCount)
+    {
+      data = new byte[Math.max(64, nodeCount * 4)];
+      offsets = new int[nodeCount + 1];
+      skipIds = new int[16];
+      skipOffsets = new int[16];
+      size = 0;
+      skips = 0;
+      nodes = 0;
+      edges = 0;
+    }
+
+    @Override
+    public void add(final int[] neighbors)
+    {
+      int node = nodes++;
+      offsets[node] = size;
+      writeVarint(neighbors.length);
+      if (neighbors.length > BLOCK_SIZE)
+      {
+        writeVarint(skips);
+      }
+      for (int k = 0; k < neighbors.length; k++)
+      {
+        if (k == 0)
+        {
+          int distance = neighbors[0] - node;
+          writeVarint((distance << 1) ^ (distance >> 31));
+        }
+        else
+        {
+          writeVarint(neighbors[k] - neighbors[k - 1]);
+        }
+        if (k > 0 && k % BLOCK_SIZE == 0)
+        {
+          if (skips == skipIds.length)
+          {
+            skipIds = Arrays.copyOf(skipIds, skips * 2);
+            skipOffsets = Arrays.copyOf(skipOffsets, skips * 2);
+          }
+          skipIds[skips] = neighbors[k];
+          skipOffsets[skips] = size;
+          skips++;
+        }
+      }
+      edges += neighbors.length;
+    }
+
+    @Override
+    public Adjacency build()
+    {
+      offsets[nodes] = size;
+      return new CompressedAdjacency(Arrays.copyOf(data, size), Arrays.copyOf(offsets, nodes + 1),
+          Arrays.copyOf(skipIds, skips), Arrays.copyOf(skipOffsets, skips), edges);
+    }
+
+    private void writeVarint(int value)
+    {
+      if (size + 5 > data.length)
+      {
+        if (data.length > Integer.MAX_VALUE / 3 * 2)
+        {
+          throw new IllegalStateException("Compressed adjacency exceeds 2GB");
+        }
+        data = Arrays.copyOf(data, data.length + (data.length >> 1));
+      }
+      while ((value & ~0x7F) != 0)
+      {
+        data[size++] = (byte)((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      data[size++] = (byte)value;
+    }
+  }
+}
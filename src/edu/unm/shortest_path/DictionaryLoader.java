@@ -0,0 +1,436 @@
+/*
+ * Nicholas Spurlock
+ *
+ * This class reads a dictionary file and hands its words to a WordSink.  The file is read through a FileChannel
+ * in large chunks and each chunk is split into lines in parallel.  Words are trimmed, lowercased and deduplicated
+ * before they reach the sink, and the sink is told how many words of each length to expect.
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class DictionaryLoader
+{
+  public static final int DEFAULT_MAX_WORD_LENGTH = 64; //Longer than any word in a real dictionary
+  private static final int CHUNK_SIZE = 1 << 22; //Bytes read from the channel before the chunk is split into lines
+  private static final int MIN_SEGMENT_SIZE = 1 << 16; //Smallest piece of a chunk worth handing to another thread
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: The path to the dictionary
+   *     WordSink sink: The graph that receives the words
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The number of distinct words handed to the sink
+   * Description:
+   *   Reads a text file of words, one per line, and hands every distinct word to the sink.  Lines longer than
+   *   DEFAULT_MAX_WORD_LENGTH characters are skipped and reported.
+   * Algorithm:
+   *   Words are kept in lists by length, and once the whole file is read each list is sorted so duplicates sit
+   *   next to each other and can be dropped as the words are handed to the sink.
+   */
+  public static int load(final String path, final WordSink sink) throws IOException
+  {
+    return load(path, sink, 1, Integer.MAX_VALUE, DEFAULT_MAX_WORD_LENGTH);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: The path to the dictionary
+   *     WordSink sink: The graph that receives the words
+   *     int minLength: The length of the shortest words to keep
+   *     int maxLength: The length of the longest words to keep
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The number of distinct words handed to the sink
+   * Description:
+   *   Like load, but only words of the given lengths are kept, and the sink is told there are no words of any
+   *   other length.  Only the kept words are held while the file is read.
+   */
+  public static int load(final String path, final WordSink sink, final int minLength, final int maxLength)
+      throws IOException
+  {
+    return load(path, sink, minLength, maxLength, DEFAULT_MAX_WORD_LENGTH);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: The path to the dictionary
+   *     WordSink sink: The graph that receives the words
+   *     int minLength: The length of the shortest words to keep
+   *     int maxLength: The length of the longest words to keep
+   *     int maxWordLength: The length of the longest line taken as a word
+   *   Outputs:
+   *     Number of skipped lines, printed to stderr
+   * Return Value:
+   *   The number of distinct words handed to the sink
+   * Description:
+   *   Like load, but only words of the given lengths are kept, and lines longer than maxWordLength characters are
+   *   skipped whatever the range.  A stray line of megabytes would otherwise be held whole and compared against
+   *   every word of the lengths around it.  The skipped lines are reported only when the range reaches past
+   *   maxWordLength, since a range that stops short of it would not have kept them anyway.
+   */
+  public static int load(final String path, final WordSink sink, final int minLength, final int maxLength,
+      final int maxWordLength) throws IOException
+  {
+    TreeMap<Integer, ArrayList<String>> buckets = new TreeMap<>();
+    LongAdder skipped = new LongAdder();
+    skipped.add(read(path, maxWordLength, (data, from, to) ->
+        splitLines(data, from, to, minLength, Math.min(maxLength, maxWordLength), maxWordLength, skipped, buckets)));
+    if (maxLength > maxWordLength)
+    {
+      reportSkipped(path, skipped.sum(), maxWordLength);
+    }
+    return handOff(buckets, sink);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: The path to the dictionary
+   *   Outputs:
+   *     Number of skipped lines, printed to stderr
+   * Return Value:
+   *   The number of lines holding a word of each length, indexed by length, duplicates included
+   * Description:
+   *   Counts the words of each length without keeping any of them, so the lengths can be divided up before
+   *   anything is loaded.  Lines longer than DEFAULT_MAX_WORD_LENGTH characters are skipped and reported.
+   */
+  public static int[] countLengths(final String path) throws IOException
+  {
+    int[][] counts = {new int[0]};
+    LongAdder skipped = new LongAdder();
+    skipped.add(read(path, DEFAULT_MAX_WORD_LENGTH, (data, from, to) ->
+        forEachWord(data, from, to, 1, DEFAULT_MAX_WORD_LENGTH, DEFAULT_MAX_WORD_LENGTH, skipped, word ->
+    {
+      if (counts[0].length <= word.length())
+      {
+        counts[0] = Arrays.copyOf(counts[0], word.length() + 1);
+      }
+      counts[0][word.length()]++;
+    })));
+    reportSkipped(path, skipped.sum(), DEFAULT_MAX_WORD_LENGTH);
+    return counts[0];
+  }
+
+  private static void reportSkipped(final String path, final long skipped, final int maxWordLength)
+  {
+    if (skipped > 0)
+    {
+      System.err.println("Skipped " + skipped + " lines longer than " + maxWordLength + " characters in " + path
+          + ".");
+    }
+  }
+
+  /*
+   * Receives each piece of the dictionary that ends with a whole line.
+   */
+  private interface LineHandler
+  {
+    void lines(final byte[] data, final int from, final int to);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: The path to the dictionary
+   *     int maxWordLength: The length of the longest line taken as a word
+   *     LineHandler handler: Receives the lines of the file, a buffer at a time
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The number of lines dropped for not fitting in the buffer
+   * Description:
+   *   Reads the file through a FileChannel in large chunks.
+   * Algorithm:
+   *   The file is read into a buffer until it is full.  Everything up to the last line break goes to the handler
+   *   and the partial line after it is moved to the front of the buffer for the next read.  A UTF-8 character
+   *   takes at most four bytes, so a line that fills a buffer of more than four bytes per allowed character is too
+   *   long to be a word and is dropped up to its line break.  Otherwise the buffer is doubled.
+   */
+  private static long read(final String path, final int maxWordLength, final LineHandler handler)
+      throws IOException
+  {
+    long dropped = 0;
+    boolean dropping = false; //Whether the start of the buffer is the middle of a dropped line
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ))
+    {
+      ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+      while (true)
+      {
+        boolean atEnd = channel.read(buffer) == -1;
+        if (dropping)
+        {
+          int lineEnd = 0;
+          while (lineEnd < buffer.position() && buffer.get(lineEnd) != '\n')
+          {
+            lineEnd++;
+          }
+          if (lineEnd == buffer.position())
+          {
+            buffer.clear();
+            if (atEnd)
+            {
+              break;
+            }
+            continue;
+          }
+          dropping = false;
+          buffer.flip();
+          buffer.position(lineEnd + 1);
+          buffer.compact();
+        }
+        if (atEnd)
+        {
+          //Whatever is left is the last line, which may not end with a line break
+          handler.lines(buffer.array(), 0, buffer.position());
+          break;
+        }
+        if (buffer.hasRemaining())
+        {
+          continue;
+        }
+        int end = buffer.position();
+        while (end > 0 && buffer.get(end - 1) != '\n')
+        {
+          end--;
+        }
+        if (end == 0)
+        {
+          if (buffer.capacity() > 4L * maxWordLength)
+          {
+            dropped++;
+            dropping = true;
+            buffer.clear();
+            continue;
+          }
+          ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+          buffer.flip();
+          larger.put(buffer);
+          buffer = larger;
+          continue;
+        }
+        handler.lines(buffer.array(), 0, end);
+        buffer.flip();
+        buffer.position(end);
+        buffer.compact();
+      }
+    }
+    return dropped;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     byte[] data: The bytes read from the dictionary
+   *     int from: Index of the first byte of the first line
+   *     int to: Index one past the last byte of the last line
+   *     int minLength: The length of the shortest words to keep
+   *     int maxLength: The length of the longest words to keep
+   *     int maxWordLength: The length of the longest line taken as a word
+   *     LongAdder skipped: Counts the lines longer than maxWordLength
+   *     TreeMap<Integer, ArrayList<String>> buckets: The words read so far, by length
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Splits the given bytes into words and adds them to the length buckets.
+   * Algorithm:
+   *   The range is cut into one segment per available thread, each cut moved forward to just after a line break.
+   *   The segments are parsed in parallel into their own buckets, which are then appended in segment order.
+   */
+  private static void splitLines(final byte[] data, final int from, final int to, final int minLength,
+      final int maxLength, final int maxWordLength, final LongAdder skipped,
+      final TreeMap<Integer, ArrayList<String>> buckets)
+  {
+    int segments = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), (to - from) / MIN_SEGMENT_SIZE));
+    int[] cuts = new int[segments + 1];
+    cuts[0] = from;
+    cuts[segments] = to;
+    for (int i = 1; i < segments; i++)
+    {
+      int cut = Math.max(cuts[i - 1], from + (int)((long)(to - from) * i / segments));
+      while (cut < to && data[cut - 1] != '\n')
+      {
+        cut++;
+      }
+      cuts[i] = cut;
+    }
+    List<TreeMap<Integer, ArrayList<String>>> parsed = IntStream.range(0, segments)
+        .parallel()
+        .mapToObj(i -> parseSegment(data, cuts[i], cuts[i + 1], minLength, maxLength, maxWordLength, skipped))
+        .collect(Collectors.toList());
+    for (TreeMap<Integer, ArrayList<String>> segment: parsed)
+    {
+      for (Map.Entry<Integer, ArrayList<String>> entry: segment.entrySet())
+      {
+        bucket(buckets, entry.getKey()).addAll(entry.getValue());
+      }
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     byte[] data: The bytes read from the dictionary
+   *     int from: Index of the first byte of the segment, always the start of a line
+   *     int to: Index one past the last byte of the segment
+   *     int minLength: The length of the shortest words to keep
+   *     int maxLength: The length of the longest words to keep
+   *     int maxWordLength: The length of the longest line taken as a word
+   *     LongAdder skipped: Counts the lines longer than maxWordLength
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The words of the segment of the given lengths, by length
+   */
+  private static TreeMap<Integer, ArrayList<String>> parseSegment(final byte[] data, final int from, final int to,
+      final int minLength, final int maxLength, final int maxWordLength, final LongAdder skipped)
+  {
+    TreeMap<Integer, ArrayList<String>> local = new TreeMap<>();
+    forEachWord(data, from, to, minLength, maxLength, maxWordLength, skipped,
+        word -> bucket(local, word.length()).add(word));
+    return local;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     byte[] data: The bytes read from the dictionary
+   *     int from: Index of the first byte of the range, always the start of a line
+   *     int to: Index one past the last byte of the range
+   *     int minLength: The length of the shortest words to pass on
+   *     int maxLength: The length of the longest words to pass on
+   *     int maxWordLength: The length of the longest line taken as a word
+   *     LongAdder skipped: Counts the lines longer than maxWordLength
+   *     Consumer<String> action: Receives each word
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Turns each line of the range into a lowercase word and passes it on if its length is in range.  Surrounding
+   *   whitespace is removed and blank lines are skipped.
+   * Algorithm:
+   *   A line has at least as many bytes as its word has characters, so a line with fewer bytes than minLength is
+   *   skipped without being decoded.  A character takes at most four bytes, so neither is a line with more than
+   *   four bytes for every character allowed.
+   */
+  private static void forEachWord(final byte[] data, final int from, final int to, final int minLength,
+      final int maxLength, final int maxWordLength, final LongAdder skipped, final Consumer<String> action)
+  {
+    int start = from;
+    while (start < to)
+    {
+      int end = start;
+      while (end < to && data[end] != '\n')
+      {
+        end++;
+      }
+      int next = end + 1;
+      while (start < end && isBlank(data[start]))
+      {
+        start++;
+      }
+      while (end > start && isBlank(data[end - 1]))
+      {
+        end--;
+      }
+      if (end - start > 4L * maxWordLength)
+      {
+        skipped.increment();
+      }
+      else if (end > start && end - start >= minLength)
+      {
+        String word = new String(data, start, end - start, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+        if (word.length() > maxWordLength)
+        {
+          skipped.increment();
+        }
+        else if (word.length() >= minLength && word.length() <= maxLength)
+        {
+          action.accept(word);
+        }
+      }
+      start = next;
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     TreeMap<Integer, ArrayList<String>> buckets: Every word read from the dictionary, by length
+   *     WordSink sink: The graph that receives the words
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The number of distinct words handed to the sink
+   * Description:
+   *   Sorts and deduplicates each bucket, tells the sink the bucket sizes, then hands over the words shortest first.
+   *   Each bucket is released once its words have been handed over.
+   */
+  private static int handOff(final TreeMap<Integer, ArrayList<String>> buckets, final WordSink sink)
+  {
+    int[] sizes = new int[buckets.isEmpty() ? 0 : buckets.lastKey() + 1];
+    int total = 0;
+    for (Map.Entry<Integer, ArrayList<String>> entry: buckets.entrySet())
+    {
+      ArrayList<String> bucket = entry.getValue();
+      Collections.sort(bucket);
+      int kept = 0;
+      for (int i = 0; i < bucket.size(); i++)
+      {
+        if (kept == 0 || !bucket.get(kept - 1).equals(bucket.get(i)))
+        {
+          bucket.set(kept++, bucket.get(i));
+        }
+      }
+      bucket.subList(kept, bucket.size()).clear();
+      sizes[entry.getKey()] = kept;
+      total += kept;
+    }
+    sink.initBuckets(sizes);
+    while (!buckets.isEmpty())
+    {
+      for (String word: buckets.pollFirstEntry().getValue())
+      {
+        sink.addWord(word);
+      }
+    }
+    return total;
+  }
+
+  private static ArrayList<String> bucket(final TreeMap<Integer, ArrayList<String>> buckets, final int length)
+  {
+    return buckets.computeIfAbsent(length, key -> new ArrayList<String>());
+  }
+
+  private static boolean isBlank(final byte b)
+  {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\f';
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * Holds several named dictionaries in one process.  A base dictionary is loaded into its own CompactWordGraph, and
+ * a variant of it is an OverlayWordGraph that shares the base's words and edges and stores only what it adds, so
+ * memory grows with the size of the differences rather than with the number of variants.  Queries name the
+ * dictionary to search.
+ *
+ * Dictionaries are loaded outside the registry's lock, and only adding a loaded one and removing one hold it, so
+ * a dictionary is never removed while an overlay is being added to it.
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DictionaryRegistry
+{
+  private final Map<String, IndexedWordGraph> dictionaries;
+  
+  public DictionaryRegistry()
+  {
+    dictionaries = new ConcurrentHashMap<>();
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String name: The name queries will use for the dictionary
+   *     String path: The path to the dictionary
+   *     boolean compressed: Whether to store the edges as a CompressedAdjacency
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The graph of the dictionary
+   * Description:
+   *   Loads a base dictionary that overlays can be added to.  Nothing is added if the dictionary cannot be read.
+   */
+  public CompactWordGraph addBase(final String name, final String path, final boolean compressed)
+      throws IOException
+  {
+    CompactWordGraph graph = CompactWordGraph.load(path, compressed);
+    register(name, graph, null, null);
+    return graph;
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String name: The name queries will use for the dictionary
+   *     String baseName: The name of a base dictionary added with addBase
+   *     String... paths: The dictionaries of extra words
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The graph of the dictionary
+   * Description:
+   *   Adds a dictionary made of a base dictionary plus the words of the given files.  Overlays are always built on
+   *   a base dictionary, not on another overlay, so an overlay that extends another lists both sets of files.
+   *   Nothing is added if any of the files cannot be read, or if the base is removed while they are read.
+   */
+  public OverlayWordGraph addOverlay(final String name, final String baseName, final String... paths)
+      throws IOException
+  {
+    IndexedWordGraph base = get(baseName);
+    if (!(base instanceof CompactWordGraph))
+    {
+      throw new IllegalArgumentException(baseName + " is an overlay; overlays must be added to a base dictionary");
+    }
+    OverlayWordGraph graph = OverlayWordGraph.load((CompactWordGraph)base, paths);
+    register(name, graph, baseName, base);
+    return graph;
+  }
+  
+  /*
+   * Adds the graph under the given name.  An overlay is only added while its base is still registered under
+   * baseName, which remove cannot change in the meantime since both hold the registry's lock.
+   */
+  private synchronized void register(final String name, final IndexedWordGraph graph, final String baseName,
+      final IndexedWordGraph base)
+  {
+    if (base != null && dictionaries.get(baseName) != base)
+    {
+      throw new IllegalStateException(baseName + " was removed while " + name + " was being loaded");
+    }
+    if (dictionaries.putIfAbsent(name, graph) != null)
+    {
+      throw new IllegalArgumentException("A dictionary named " + name + " already exists");
+    }
+  }
+  
+  /*
+   * Returns the dictionary with the given name, throwing IllegalArgumentException if there is none.
+   */
+  public IndexedWordGraph get(final String name)
+  {
+    IndexedWordGraph graph = dictionaries.get(name);
+    if (graph == null)
+    {
+      throw new IllegalArgumentException("No dictionary named " + name);
+    }
+    return graph;
+  }
+  
+  public List<String> getNames()
+  {
+    return new ArrayList<>(dictionaries.keySet());
+  }
+  
+  /*
+   * Removes the dictionary.  A base dictionary cannot be removed while overlays use it.
+   */
+  public synchronized void remove(final String name)
+  {
+    IndexedWordGraph graph = get(name);
+    for (IndexedWordGraph other: dictionaries.values())
+    {
+      if (other instanceof OverlayWordGraph && ((OverlayWordGraph)other).getBase() == graph)
+      {
+        throw new IllegalStateException(name + " is the base of another dictionary");
+      }
+    }
+    dictionaries.remove(name);
+  }
+  
+  /*
+   * The memory used by the edges of the dictionary itself.  For an overlay this is only what it adds to its base.
+   */
+  public long sizeInBytes(final String name)
+  {
+    return get(name).getAdjacency().sizeInBytes();
+  }
+  
+  public SearchResult findShortestPath(final String dictionary, final String start, final String end,
+      final QueryOptions options)
+  {
+    return ShortestPath.findShortestPath(start, end, get(dictionary), options);
+  }
+  
+  public AllShortestPaths findAllShortestPaths(final String dictionary, final String start, final String end,
+      final QueryOptions options)
+  {
+    return AllShortestPaths.find(start, end, get(dictionary), options);
+  }
+}
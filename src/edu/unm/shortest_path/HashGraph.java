@@ -1,28 +1,20 @@
 package edu.unm.shortest_path;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 
 
 
-public class HashGraph
+public class HashGraph implements WordSink
 {
-  private final int MAX_WORD_LENGTH;
   private final int MAX_LIST_SIZE; //A list size max used to avoid thousands of list copies cause by list expansion. Trading memory for time.
-  private HashSet<String> dictionary;
-  private HashMap<String, ArrayList<WordNode>> graph;
+  private HashMap<String, ArrayList<WordNode>> graph; //The keys double as the dictionary
  
-  public HashGraph(final int maxWordLength, final String dictionaryPath)
+  public HashGraph(final String dictionaryPath)
   {
-    this.MAX_WORD_LENGTH = maxWordLength;
     this.MAX_LIST_SIZE = 30000;
-    this.dictionary = new HashSet<>();
     this.graph = new HashMap<>();
     //initGraph();
     generateGraph(dictionaryPath);
@@ -71,7 +63,7 @@ public class HashGraph
   @SuppressWarnings("unused")
   private void printGraph()
   {
-    Iterator<String> it = dictionary.iterator();
+    Iterator<String> it = graph.keySet().iterator();
     while (it.hasNext())
     {
       String word = it.next();
@@ -105,7 +97,6 @@ public class HashGraph
   {
     StringBuilder sb;
     char[] cWord = word.toCharArray();
-    graph.put(word, new ArrayList<WordNode>());
     for (int i = 0; i < word.length(); i++)
     {
       char temp = cWord[i];
@@ -113,7 +104,7 @@ public class HashGraph
       {
         
         cWord[i] = (char)j;
-        if (dictionary.contains(String.valueOf(cWord)))
+        if (graph.containsKey(String.valueOf(cWord)))
         {
           System.out.println("Added " + String.valueOf(cWord));
           if (!graph.containsKey(word))
@@ -131,7 +122,7 @@ public class HashGraph
       sb = new StringBuilder(word);
       for (int j = 97; j < 123; j++)
       {
-        if (dictionary.contains(sb.insert(i, (char)j).toString()))
+        if (graph.containsKey(sb.insert(i, (char)j).toString()))
         {
           graph.get(word).add(new WordNode(sb.toString(), sb.length()));
         }
@@ -139,7 +130,7 @@ public class HashGraph
         if (i < word.length())
         {
           char temp = sb.charAt(i);
-          if (dictionary.contains(sb.deleteCharAt(i).toString()))
+          if (graph.containsKey(sb.deleteCharAt(i).toString()))
           {
             graph.get(word).add(new WordNode(sb.toString(), sb.length()));
           }
@@ -149,6 +140,45 @@ public class HashGraph
     }
   }
   
+  /*
+   * Parameters:
+   *  Inputs:
+   *    int[] bucketSizes: The number of words of each length in the dictionary
+   *  Outputs:
+   *    None
+   * Return Value:
+   *    void
+   * Description:
+   *    Sizes the map for the number of words in the dictionary
+   */
+  @Override
+  public void initBuckets(final int[] bucketSizes)
+  {
+    int total = 0;
+    for (int size: bucketSizes)
+    {
+      total += size;
+    }
+    graph = new HashMap<>(total * 4 / 3 + 1);
+  }
+
+  /*
+   * Parameters:
+   *  Inputs:
+   *    String word: The word read from the dictionary
+   *  Outputs:
+   *    None
+   * Return Value:
+   *    void
+   * Description:
+   *    Adds the word to the map with an empty list of connected words.  Connections are found once every word is in.
+   */
+  @Override
+  public void addWord(final String word)
+  {
+    graph.put(word, new ArrayList<WordNode>());
+  }
+
   /*
    * Parameters:
    *  Inputs: 
@@ -183,30 +213,18 @@ public class HashGraph
    * Description:
    *    Reads through a text file of words(dictionary) it generates a graph of words connected by one legal move.
    * Algorithm:
-   *    For each word in the dictionary a WordNode is created and lists of words one letter less, the same length, and one letter more
-   *    are retrieved from a HashMap.  Each list is iterated over and each new word from the dictionary is checked against
-   *    every word from the lists.  If a connection is found between the words they are added to the appropriate list of each
-   *    WordNode.  The new WordNode is then added to the HashMap
+   *    DictionaryLoader hands every distinct word to addWord, which makes it a key of the map.  Each key is then
+   *    edited one letter at a time and every edit that is also a key is added to the key's list of connected words
    */
   private void generateGraph(final String path)
   {
     //TimerThread thread = new TimerThread("TimerThread");
     double beforeMills = System.currentTimeMillis();
-    FileInputStream fin = null;
     try
     {
-      String word = null;
-      fin = new FileInputStream(path);
-      InputStreamReader reader = new InputStreamReader(fin);
-      BufferedReader buffReader = new BufferedReader(reader);
-      
-      //Read each word until we've read them all
-      while ((word = buffReader.readLine()) != null)
-      {
-        dictionary.add(word);
-      }
+      DictionaryLoader.load(path, this);
       
-      java.util.Iterator<String> it = dictionary.iterator();
+      java.util.Iterator<String> it = graph.keySet().iterator();
       while(it.hasNext())
       {
         isConnected(it.next());
@@ -214,7 +232,6 @@ public class HashGraph
       double end = System.currentTimeMillis() - beforeMills;
       System.out.println(end);
       printGraph();
-      fin.close();
     } 
     catch (IOException e)
     {
@@ -0,0 +1,370 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Answers queries against an IndexedWordGraph, watching which end words are asked for most.  Once an end word has
+ * been asked for often enough, a background thread runs one breadth first search from it and keeps the resulting
+ * tree: for every word, the next word on a shortest path toward the end word.  Later queries to that end word just
+ * follow those links from the start word with no search at all.
+ *
+ * Each tree is one int per word, and the builder needs room for two more trees' worth of ints while it works: the
+ * queue of its search and the tree being built.  The number of trees kept is what is left of the memory budget
+ * after those, divided by the size of a tree.  How often an end word is asked for is counted with a score that is
+ * halved every DECAY_INTERVAL queries, and when the cache is full a new tree only replaces the tree whose end word
+ * has the lowest score, and only if the new one scores more than twice as high, so end words of about the same
+ * popularity do not keep evicting each other.
+ *
+ * Scores are kept without locks.  Each end word's score is one AtomicLong holding the score and the decay period
+ * it was last updated in, and a score is halved once for every period it missed when it is next read or raised,
+ * so no query ever has to walk the other scores.  Scores that have decayed to nothing are removed by the builder
+ * thread, once per period.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class HotTargetCache implements AutoCloseable
+{
+  private static final int DECAY_INTERVAL = 1024; //Queries between halvings of every score
+  private static final int UNREACHABLE = -1;
+  private static final int BUILDER_TREES = 2; //Tree sized buffers the builder uses: its queue and the tree it builds
+
+  private final IndexedWordGraph GRAPH;
+  private final int CAPACITY; //The most trees that fit in the memory budget
+  private final int HOT_THRESHOLD; //Score an end word needs before its tree is built
+  private final ExecutorService BUILDER;
+  private final Map<Integer, int[]> trees; //End word id to the next hop of every word toward it
+  private final Map<Integer, AtomicLong> scores; //End word id to its score and the period it was last decayed to
+  private final Map<Integer, Boolean> pending; //End words whose trees are being built
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+  private final AtomicLong built;
+  private final AtomicLong evicted;
+  private final AtomicLong requests; //Queries recorded, whose quotient by DECAY_INTERVAL is the decay period
+  private volatile boolean closed; //True once close is called, after which no more trees are built
+  private int[] queue; //Used only by the builder thread
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     IndexedWordGraph graph: The graph to answer queries against
+   *     long memoryBudget: Bytes the cached trees may use in total
+   *     int hotThreshold: How high an end word's score must be before its tree is built
+   */
+  public HotTargetCache(final IndexedWordGraph graph, final long memoryBudget, final int hotThreshold)
+  {
+    this.GRAPH = graph;
+    this.CAPACITY = (int)Math.max(0, Math.min(Integer.MAX_VALUE,
+        memoryBudget / (4L * Math.max(1, graph.size())) - BUILDER_TREES));
+    this.HOT_THRESHOLD = hotThreshold;
+    this.BUILDER = Executors.newSingleThreadExecutor(r ->
+    {
+      Thread t = new Thread(r, "HotTargetCache builder");
+      t.setDaemon(true);
+      return t;
+    });
+    this.trees = new ConcurrentHashMap<>();
+    this.scores = new ConcurrentHashMap<>();
+    this.pending = new ConcurrentHashMap<>();
+    this.hits = new AtomicLong();
+    this.misses = new AtomicLong();
+    this.built = new AtomicLong();
+    this.evicted = new AtomicLong();
+    this.requests = new AtomicLong();
+    this.closed = false;
+    this.queue = new int[0];
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start from
+   *     String end: The word to find the shortest path to
+   *     QueryOptions options: The limits of the search, used when the end word has no tree
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   A SearchResult with the path, or the reason there is none
+   * Description:
+   *   Follows the cached tree of the end word if there is one, otherwise searches the graph.  Either way the end
+   *   word's score goes up, and a tree is queued for building once the score reaches HOT_THRESHOLD, unless the
+   *   cache has been closed.
+   * Algorithm:
+   *   A tree walk expands no words, so it reports no expansions.  Its path is a shortest path like the search's,
+   *   and a walk longer than the options allow is reported as exceeding the path length budget.
+   */
+  public SearchResult findShortestPath(final String start, final String end, final QueryOptions options)
+  {
+    long startNanos = System.nanoTime();
+    int source = GRAPH.indexOf(start);
+    int target = GRAPH.indexOf(end);
+    if (source < 0 || target < 0)
+    {
+      return ShortestPath.findShortestPath(start, end, GRAPH, options);
+    }
+    int score = recordRequest(target);
+    int[] tree = trees.get(target);
+    if (tree == null)
+    {
+      misses.incrementAndGet();
+      if (!closed && score >= HOT_THRESHOLD && CAPACITY > 0 && pending.putIfAbsent(target, Boolean.TRUE) == null)
+      {
+        if (trees.containsKey(target))
+        {
+          //Built and no longer pending between the lookup above and putIfAbsent
+          pending.remove(target);
+        }
+        else
+        {
+          try
+          {
+            BUILDER.execute(() -> build(target));
+          }
+          catch (RejectedExecutionException e)
+          {
+            //Closed since the check above, so the query is answered by the search alone
+            pending.remove(target);
+          }
+        }
+      }
+      return ShortestPath.findShortestPath(start, end, GRAPH, options);
+    }
+    hits.incrementAndGet();
+    if (tree[source] == UNREACHABLE)
+    {
+      return new SearchResult(start, end, SearchResult.Status.NO_PATH, null, null, 0, 0,
+          System.nanoTime() - startNanos);
+    }
+    List<String> path = new ArrayList<>();
+    for (int node = source; ; node = tree[node])
+    {
+      path.add(GRAPH.getWord(node));
+      if (node == target)
+      {
+        break;
+      }
+    }
+    if (path.size() - 1 > options.getMaxPathLength())
+    {
+      return new SearchResult(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.PATH_LENGTH,
+          null, 0, 0, System.nanoTime() - startNanos);
+    }
+    return new SearchResult(start, end, SearchResult.Status.FOUND, null, path, 0, 0, System.nanoTime() - startNanos);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int target: The end word asked for
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The target's new score
+   * Description:
+   *   Adds one to the target's score, after halving it once for each decay period since it was last raised.  The
+   *   query that starts a new period asks the builder thread to drop the scores that have decayed to nothing.
+   * Algorithm:
+   *   The period is kept in the upper 32 bits of the AtomicLong and the score in the lower 32, and both are
+   *   replaced together by compareAndSet, so two queries for the same end word never lose a count.
+   */
+  private int recordRequest(final int target)
+  {
+    long count = requests.incrementAndGet();
+    int period = (int)(count / DECAY_INTERVAL);
+    if (count % DECAY_INTERVAL == 0 && !closed)
+    {
+      try
+      {
+        BUILDER.execute(this::sweep);
+      }
+      catch (RejectedExecutionException e)
+      {
+        //Closed, so the scores no longer matter
+      }
+    }
+    AtomicLong entry = scores.computeIfAbsent(target, key -> new AtomicLong((long)period << 32));
+    while (true)
+    {
+      long packed = entry.get();
+      int score = decay(packed, period) + 1;
+      if (entry.compareAndSet(packed, ((long)period << 32) | score))
+      {
+        return score;
+      }
+    }
+  }
+
+  private int scoreOf(final int target)
+  {
+    AtomicLong entry = scores.get(target);
+    return (entry == null) ? 0 : decay(entry.get(), (int)(requests.get() / DECAY_INTERVAL));
+  }
+
+  /*
+   * Returns the score of a packed period and score, halved once for every period from the one it holds to the
+   * given one.
+   */
+  private static int decay(final long packed, final int period)
+  {
+    int missed = period - (int)(packed >>> 32);
+    int score = (int)packed;
+    return (missed <= 0) ? score : (missed >= Integer.SIZE) ? 0 : score >>> missed;
+  }
+
+  /*
+   * Runs on the builder thread.  Removes the scores that have decayed to nothing.  A query that raises one of them
+   * at the same moment may lose that one count, which a score that had decayed to nothing can afford.
+   */
+  private void sweep()
+  {
+    int period = (int)(requests.get() / DECAY_INTERVAL);
+    scores.entrySet().removeIf(entry -> decay(entry.getValue().get(), period) == 0);
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int target: The end word to build a tree for
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Runs on the builder thread.  Builds the tree of the target and adds it to the cache, evicting the coldest
+   *   tree if the cache is full.  Nothing is built if the target already has a tree, or if the cache is full and
+   *   no tree is cold enough to replace.  Only this thread adds trees, so a tree found here stays until it does.
+   * Algorithm:
+   *   A breadth first search from the target.  The graph's edges go both ways, so the word each word is reached
+   *   from is its next hop toward the target.
+   */
+  private void build(final int target)
+  {
+    try
+    {
+      if (trees.containsKey(target) || (trees.size() >= CAPACITY && coldest(scoreOf(target)) < 0))
+      {
+        return;
+      }
+      int n = GRAPH.size();
+      int[] tree = new int[n];
+      Arrays.fill(tree, UNREACHABLE);
+      if (queue.length < n)
+      {
+        queue = new int[n];
+      }
+      NeighborCursor cursor = GRAPH.getAdjacency().cursor();
+      tree[target] = target;
+      queue[0] = target;
+      int head = 0;
+      int tail = 1;
+      while (head < tail)
+      {
+        int node = queue[head++];
+        cursor.reset(node);
+        for (int next = cursor.next(); next >= 0; next = cursor.next())
+        {
+          if (tree[next] == UNREACHABLE)
+          {
+            tree[next] = node;
+            queue[tail++] = next;
+          }
+        }
+      }
+      if (trees.size() >= CAPACITY)
+      {
+        int victim = coldest(scoreOf(target));
+        if (victim < 0)
+        {
+          return;
+        }
+        trees.remove(victim);
+        evicted.incrementAndGet();
+      }
+      trees.put(target, tree);
+      built.incrementAndGet();
+    }
+    finally
+    {
+      pending.remove(target);
+    }
+  }
+
+  /*
+   * Returns the cached end word with the lowest score, if less than half the given score, otherwise -1.
+   */
+  private int coldest(final int score)
+  {
+    int victim = -1;
+    int lowest = Integer.MAX_VALUE;
+    for (Integer cached: trees.keySet())
+    {
+      int s = scoreOf(cached);
+      if (s < lowest)
+      {
+        lowest = s;
+        victim = cached;
+      }
+    }
+    return (lowest < score / 2) ? victim : -1;
+  }
+
+  public int getCapacity()
+  {
+    return this.CAPACITY;
+  }
+  public int getCachedTrees()
+  {
+    return trees.size();
+  }
+  public long getEvictions()
+  {
+    return evicted.get();
+  }
+  public long getHits()
+  {
+    return hits.get();
+  }
+  /*
+   * The share of queries, with both words in the dictionary, answered from a cached tree.
+   */
+  public double getHitRate()
+  {
+    long h = hits.get();
+    long total = h + misses.get();
+    return (total == 0) ? 0 : (double)h / total;
+  }
+  public long getMisses()
+  {
+    return misses.get();
+  }
+  public long getTreesBuilt()
+  {
+    return built.get();
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format("trees=%d/%d hits=%d misses=%d hitRate=%.1f%% built=%d evicted=%d", trees.size(), CAPACITY,
+        hits.get(), misses.get(), 100 * getHitRate(), built.get(), evicted.get());
+  }
+
+  /*
+   * Stops the builder thread.  Trees already cached keep answering queries, and other queries are searched
+   * without ever building a tree.
+   */
+  @Override
+  public void close()
+  {
+    closed = true;
+    BUILDER.shutdownNow();
+  }
+}
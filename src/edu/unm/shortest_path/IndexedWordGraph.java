@@ -0,0 +1,26 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * A graph of words numbered from 0 whose edges are kept in an Adjacency.  The searches in ShortestPath,
+ * AllShortestPaths and HotTargetCache work on any IndexedWordGraph, whether a CompactWordGraph or an
+ * OverlayWordGraph that adds words to one.
+ */
+
+package edu.unm.shortest_path;
+
+public interface IndexedWordGraph
+{
+  /*
+   * The number of words.  Ids run from 0 to size() - 1.
+   */
+  int size();
+
+  String getWord(final int id);
+
+  /*
+   * Returns the id of the word, ignoring case, or -1 if it is not in the dictionary.
+   */
+  int indexOf(final String word);
+
+  Adjacency getAdjacency();
+}
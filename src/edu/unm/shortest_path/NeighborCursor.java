@@ -0,0 +1,43 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * Walks the neighbors of one word at a time in increasing id order.  A cursor is reused for every word a search
+ * expands, so iterating neighbors allocates nothing.  A cursor must only be used by one thread.
+ */
+
+package edu.unm.shortest_path;
+
+public interface NeighborCursor
+{
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int node: The id of the word whose neighbors to walk
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Moves the cursor to before the first neighbor of node.
+   */
+  void reset(final int node);
+
+  /*
+   * Return Value:
+   *   The id of the next neighbor, or -1 once every neighbor has been returned
+   */
+  int next();
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int target: The smallest id wanted
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The first remaining neighbor whose id is at least target, or -1 if there is none
+   * Description:
+   *   Skips ahead to target.  Neighbors before the one returned are passed over and will not be returned by next.
+   */
+  int advance(final int target);
+}
@@ -0,0 +1,118 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * Finds the neighbors of a word by trying every edit of one letter and looking each result up in a dictionary.
+ * Used to build the edges of CompactWordGraph and OverlayWordGraph.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Arrays;
+
+final class OneLetterEdits
+{
+  /*
+   * Looks up the first length characters of word, returning its id or -1 if it is not a word.
+   */
+  interface Lookup
+  {
+    int find(final char[] word, final int length);
+  }
+  
+  private OneLetterEdits()
+  {
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String w: The word whose neighbors to find
+   *     char[] alphabet: The letters to substitute and insert
+   *     Lookup lookup: The dictionary to look edits up in
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The sorted ids of every word within one legal move of w
+   * Description:
+   *   Tries every substitution, deletion and insertion of one letter and keeps the results that are words.
+   * Algorithm:
+   *   Letters are only tried from the alphabet of the dictionary.  A deletion of a letter equal to the one before
+   *   it, or an insertion of a letter equal to the one before the gap, gives a word already tried and is skipped,
+   *   so no id is found twice.
+   */
+  static int[] neighbors(final String w, final char[] alphabet, final Lookup lookup)
+  {
+    char[] word = w.toCharArray();
+    int length = word.length;
+    char[] edit = new char[length + 1];
+    int[] found = new int[16];
+    int count = 0;
+
+    //Substitutions
+    for (int i = 0; i < length; i++)
+    {
+      char original = word[i];
+      for (char c: alphabet)
+      {
+        if (c == original)
+        {
+          continue;
+        }
+        word[i] = c;
+        int n = lookup.find(word, length);
+        if (n >= 0)
+        {
+          found = append(found, count++, n);
+        }
+      }
+      word[i] = original;
+    }
+    //Deletions
+    for (int i = 0; i < length; i++)
+    {
+      if (i > 0 && word[i] == word[i - 1])
+      {
+        continue;
+      }
+      System.arraycopy(word, 0, edit, 0, i);
+      System.arraycopy(word, i + 1, edit, i, length - i - 1);
+      int n = lookup.find(edit, length - 1);
+      if (n >= 0)
+      {
+        found = append(found, count++, n);
+      }
+    }
+    //Insertions
+    for (int i = 0; i <= length; i++)
+    {
+      System.arraycopy(word, 0, edit, 0, i);
+      System.arraycopy(word, i, edit, i + 1, length - i);
+      for (char c: alphabet)
+      {
+        if (i > 0 && c == word[i - 1])
+        {
+          continue;
+        }
+        edit[i] = c;
+        int n = lookup.find(edit, length + 1);
+        if (n >= 0)
+        {
+          found = append(found, count++, n);
+        }
+      }
+    }
+    int[] result = Arrays.copyOf(found, count);
+    Arrays.sort(result);
+    return result;
+  }
+  
+  private static int[] append(int[] array, final int index, final int value)
+  {
+    if (index == array.length)
+    {
+      array = Arrays.copyOf(array, array.length * 2);
+    }
+    array[index] = value;
+    return array;
+  }
+}
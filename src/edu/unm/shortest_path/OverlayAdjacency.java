@@ -0,0 +1,128 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * The edges of an OverlayWordGraph: the base graph's Adjacency, which is shared and not changed, plus the edges of
+ * the extra words and the edges base words gain to them.  Extra word ids are all above base word ids, so a base
+ * word's base neighbors followed by its added neighbors are still in id order.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Arrays;
+
+class OverlayAdjacency implements Adjacency
+{
+  private final Adjacency BASE;
+  private final int BASE_SIZE;
+  private final Adjacency EXTRA; //Node k holds the neighbors of word BASE_SIZE + k
+  private final int[] ADDED_TO; //The base words that gained neighbors, sorted
+  private final Adjacency ADDED; //Node i holds the extra words base word ADDED_TO[i] gained as neighbors
+  
+  OverlayAdjacency(final Adjacency base, final int baseSize, final Adjacency extra, final int[] addedTo,
+      final Adjacency added)
+  {
+    this.BASE = base;
+    this.BASE_SIZE = baseSize;
+    this.EXTRA = extra;
+    this.ADDED_TO = addedTo;
+    this.ADDED = added;
+  }
+  
+  @Override
+  public int nodeCount()
+  {
+    return BASE_SIZE + EXTRA.nodeCount();
+  }
+  @Override
+  public long edgeCount()
+  {
+    return BASE.edgeCount() + EXTRA.edgeCount() + ADDED.edgeCount();
+  }
+  @Override
+  public int degree(final int node)
+  {
+    if (node >= BASE_SIZE)
+    {
+      return EXTRA.degree(node - BASE_SIZE);
+    }
+    int i = Arrays.binarySearch(ADDED_TO, node);
+    return BASE.degree(node) + ((i >= 0) ? ADDED.degree(i) : 0);
+  }
+  /*
+   * The memory of the overlay's own edges only.  The base edges are counted by the base graph, however many
+   * overlays share them.
+   */
+  @Override
+  public long sizeInBytes()
+  {
+    return EXTRA.sizeInBytes() + ADDED.sizeInBytes() + 4L * ADDED_TO.length;
+  }
+  @Override
+  public NeighborCursor cursor()
+  {
+    return new Cursor();
+  }
+  
+  private class Cursor implements NeighborCursor
+  {
+    private final NeighborCursor base = BASE.cursor();
+    private final NeighborCursor extra = EXTRA.cursor();
+    private final NeighborCursor added = ADDED.cursor();
+    private boolean inBase; //True while the base graph's neighbors of a base word are being returned
+    private NeighborCursor list; //The overlay's neighbors of the word, or null if it has none
+    
+    @Override
+    public void reset(final int node)
+    {
+      if (node >= BASE_SIZE)
+      {
+        inBase = false;
+        list = extra;
+        extra.reset(node - BASE_SIZE);
+        return;
+      }
+      inBase = true;
+      base.reset(node);
+      int i = Arrays.binarySearch(ADDED_TO, node);
+      if (i >= 0)
+      {
+        list = added;
+        added.reset(i);
+      }
+      else
+      {
+        list = null;
+      }
+    }
+    
+    @Override
+    public int next()
+    {
+      if (inBase)
+      {
+        int n = base.next();
+        if (n >= 0)
+        {
+          return n;
+        }
+        inBase = false;
+      }
+      return (list == null) ? -1 : list.next();
+    }
+    
+    @Override
+    public int advance(final int target)
+    {
+      if (inBase && target < BASE_SIZE)
+      {
+        int n = base.advance(target);
+        if (n >= 0)
+        {
+          return n;
+        }
+      }
+      inBase = false;
+      return (list == null) ? -1 : list.advance(target);
+    }
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * A dictionary made of a CompactWordGraph plus some extra words, such as a base English dictionary plus the words
+ * of one field.  The base graph's words and edges are shared, not copied, so any number of overlays can sit on one
+ * base and each only holds its extra words, their edges, and the edges they add to base words.
+ * 
+ * Base words keep their ids.  Extra words are numbered after them, alphabetically.
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public class OverlayWordGraph implements IndexedWordGraph, WordSink
+{
+  private final CompactWordGraph BASE;
+  private final int BASE_SIZE;
+  private String[] extras; //The extra words, alphabetically.  Extra word k has id BASE_SIZE + k
+  private ArrayList<String> loading; //Words read from the overlay files, until the edges are built
+  private OverlayAdjacency adjacency;
+  
+  /*
+   * Loads the extra words from each of the paths, drops those already in the base dictionary, and finds the
+   * edges of the words that are left.
+   */
+  public OverlayWordGraph(final CompactWordGraph base, final String... paths)
+  {
+    this(base);
+    for (String path: paths)
+    {
+      try
+      {
+        DictionaryLoader.load(path, this);
+      }
+      catch (IOException e)
+      {
+        System.err.println("Failed to open dictionary at " + path + ".");
+        e.printStackTrace();
+      }
+    }
+    generateGraph();
+  }
+  
+  /*
+   * Like the constructor, but throws the IOException of the first path that cannot be read, rather than printing
+   * it and leaving that path's words out.
+   */
+  public static OverlayWordGraph load(final CompactWordGraph base, final String... paths) throws IOException
+  {
+    OverlayWordGraph graph = new OverlayWordGraph(base);
+    for (String path: paths)
+    {
+      DictionaryLoader.load(path, graph);
+    }
+    graph.generateGraph();
+    return graph;
+  }
+  
+  private OverlayWordGraph(final CompactWordGraph base)
+  {
+    this.BASE = base;
+    this.BASE_SIZE = base.size();
+    this.loading = new ArrayList<>();
+  }
+  
+  public CompactWordGraph getBase()
+  {
+    return this.BASE;
+  }
+  @Override
+  public Adjacency getAdjacency()
+  {
+    return this.adjacency;
+  }
+  public int getExtraCount()
+  {
+    return extras.length;
+  }
+  @Override
+  public int size()
+  {
+    return BASE_SIZE + extras.length;
+  }
+  @Override
+  public String getWord(final int id)
+  {
+    return (id < BASE_SIZE) ? BASE.getWord(id) : extras[id - BASE_SIZE];
+  }
+  
+  @Override
+  public int indexOf(final String word)
+  {
+    char[] w = word.toLowerCase(Locale.ROOT).toCharArray();
+    return find(w, w.length);
+  }
+  
+  @Override
+  public void initBuckets(final int[] bucketSizes)
+  {
+    int total = 0;
+    for (int size: bucketSizes)
+    {
+      total += size;
+    }
+    loading.ensureCapacity(loading.size() + total);
+  }
+  
+  @Override
+  public void addWord(final String word)
+  {
+    if (BASE.indexOf(word) < 0)
+    {
+      loading.add(word);
+    }
+  }
+  
+  /*
+   * Looks the word up in the base dictionary and then among the extra words.
+   */
+  private int find(final char[] word, final int length)
+  {
+    int id = BASE.find(word, length);
+    if (id >= 0)
+    {
+      return id;
+    }
+    int lo = 0;
+    int hi = extras.length - 1;
+    while (lo <= hi)
+    {
+      int mid = (lo + hi) >>> 1;
+      String candidate = extras[mid];
+      int shared = Math.min(length, candidate.length());
+      int cmp = 0;
+      for (int i = 0; i < shared && cmp == 0; i++)
+      {
+        cmp = candidate.charAt(i) - word[i];
+      }
+      if (cmp == 0)
+      {
+        cmp = candidate.length() - length;
+      }
+      if (cmp < 0)
+      {
+        lo = mid + 1;
+      }
+      else if (cmp > 0)
+      {
+        hi = mid - 1;
+      }
+      else
+      {
+        return BASE_SIZE + mid;
+      }
+    }
+    return -1;
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     None
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Finds the edges of every extra word.
+   * Algorithm:
+   *   The extra words are sorted and deduplicated, since they may come from several files.  The one letter edits
+   *   of each extra word are looked up in both the base and the extra words, over the letters of both.  Edges
+   *   between two extra words are found from each end.  An edge to a base word is also recorded against the
+   *   base word, since the base graph does not know about it.  Both sets of edges are stored in the same format as
+   *   the base graph's.
+   */
+  private void generateGraph()
+  {
+    Collections.sort(loading);
+    ArrayList<String> unique = new ArrayList<>(loading.size());
+    for (String word: loading)
+    {
+      if (unique.isEmpty() || !unique.get(unique.size() - 1).equals(word))
+      {
+        unique.add(word);
+      }
+    }
+    extras = unique.toArray(new String[0]);
+    loading = null;
+    
+    BitSet letters = new BitSet();
+    for (char c: BASE.getAlphabet())
+    {
+      letters.set(c);
+    }
+    for (String word: extras)
+    {
+      for (int i = 0; i < word.length(); i++)
+      {
+        letters.set(word.charAt(i));
+      }
+    }
+    char[] alphabet = new char[letters.cardinality()];
+    int n = 0;
+    for (int c = letters.nextSetBit(0); c >= 0; c = letters.nextSetBit(c + 1))
+    {
+      alphabet[n++] = (char)c;
+    }
+    
+    boolean compressed = BASE.getAdjacency() instanceof CompressedAdjacency;
+    AdjacencyBuilder extraEdges = compressed ? new CompressedAdjacency.Builder(extras.length)
+        : new PlainAdjacency.Builder(extras.length);
+    Map<Integer, ArrayList<Integer>> added = new HashMap<>();
+    for (int k = 0; k < extras.length; k++)
+    {
+      int[] neighbors = OneLetterEdits.neighbors(extras[k], alphabet, this::find);
+      extraEdges.add(neighbors);
+      for (int neighbor: neighbors)
+      {
+        if (neighbor < BASE_SIZE)
+        {
+          added.computeIfAbsent(neighbor, key -> new ArrayList<Integer>()).add(BASE_SIZE + k);
+        }
+      }
+    }
+    int[] addedTo = added.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+    AdjacencyBuilder addedEdges = compressed ? new CompressedAdjacency.Builder(addedTo.length)
+        : new PlainAdjacency.Builder(addedTo.length);
+    for (int baseWord: addedTo)
+    {
+      addedEdges.add(added.get(baseWord).stream().mapToInt(Integer::intValue).toArray());
+    }
+    adjacency = new OverlayAdjacency(BASE.getAdjacency(), BASE_SIZE, extraEdges.build(), addedTo,
+        addedEdges.build());
+  }
+}
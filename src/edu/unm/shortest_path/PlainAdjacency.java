@@ -0,0 +1,110 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * Stores the neighbors of every word back to back in one int array, with a second array holding where each
+ * word's neighbors begin.  This is the uncompressed baseline for CompressedAdjacency.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Arrays;
+
+public class PlainAdjacency implements Adjacency
+{
+  private final int[] OFFSETS; //OFFSETS[i] is the index in TARGETS of word i's first neighbor, OFFSETS[n] the total
+  private final int[] TARGETS;
+  
+  private PlainAdjacency(final int[] offsets, final int[] targets)
+  {
+    this.OFFSETS = offsets;
+    this.TARGETS = targets;
+  }
+  
+  @Override
+  public int nodeCount()
+  {
+    return OFFSETS.length - 1;
+  }
+  @Override
+  public long edgeCount()
+  {
+    return TARGETS.length;
+  }
+  @Override
+  public int degree(final int node)
+  {
+    return OFFSETS[node + 1] - OFFSETS[node];
+  }
+  @Override
+  public long sizeInBytes()
+  {
+    return 4L * OFFSETS.length + 4L * TARGETS.length;
+  }
+  @Override
+  public NeighborCursor cursor()
+  {
+    return new Cursor();
+  }
+  
+  private class Cursor implements NeighborCursor
+  {
+    private int pos;
+    private int end;
+    
+    @Override
+    public void reset(final int node)
+    {
+      pos = OFFSETS[node];
+      end = OFFSETS[node + 1];
+    }
+    
+    @Override
+    public int next()
+    {
+      return (pos < end) ? TARGETS[pos++] : -1;
+    }
+    
+    @Override
+    public int advance(final int target)
+    {
+      int found = Arrays.binarySearch(TARGETS, pos, end, target);
+      pos = (found >= 0) ? found : -found - 1;
+      return next();
+    }
+  }
+  
+  public static class Builder implements AdjacencyBuilder
+  {
+    private int[] offsets;
+    private int[] targets;
+    private int nodes;
+    private int size;
+    
+    public Builder(final int nodeCount)
+    {
+      offsets = new int[nodeCount + 1];
+      targets = new int[Math.max(16, nodeCount)];
+      nodes = 0;
+      size = 0;
+    }
+    
+    @Override
+    public void add(final int[] neighbors)
+    {
+      if (size + neighbors.length > targets.length)
+      {
+        targets = Arrays.copyOf(targets, Math.max(size + neighbors.length, targets.length + (targets.length >> 1)));
+      }
+      offsets[nodes++] = size;
+      System.arraycopy(neighbors, 0, targets, size, neighbors.length);
+      size += neighbors.length;
+    }
+    
+    @Override
+    public Adjacency build()
+    {
+      offsets[nodes] = size;
+      return new PlainAdjacency(Arrays.copyOf(offsets, nodes + 1), Arrays.copyOf(targets, size));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * This class holds the limits placed on a single shortest path query.  Every limit defaults to unlimited, so a
+ * new QueryOptions searches until the path is found or the graph is exhausted.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.concurrent.TimeUnit;
+
+public class QueryOptions
+{
+  public static final long NO_TIMEOUT = Long.MAX_VALUE;
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+  
+  private long timeoutMillis; //Time the search may run before giving up
+  private int maxExpansions; //Number of nodes the search may expand before giving up
+  private int maxPathLength; //Longest path, in moves, the search will follow
+  private CancellationToken token;
+  
+  public QueryOptions()
+  {
+    timeoutMillis = NO_TIMEOUT;
+    maxExpansions = UNLIMITED;
+    maxPathLength = UNLIMITED;
+    token = null;
+  }
+  
+  /*
+   * A copy of other's limits, sharing its CancellationToken.
+   */
+  public QueryOptions(final QueryOptions other)
+  {
+    timeoutMillis = other.timeoutMillis;
+    maxExpansions = other.maxExpansions;
+    maxPathLength = other.maxPathLength;
+    token = other.token;
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     long startNanos: The value of System.nanoTime() when the query started
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   True if the query has run for longer than its timeout, never true without one
+   * Description:
+   *   Compares the time elapsed since the start, not the current time against a deadline, since System.nanoTime()
+   *   may be negative and a start plus timeout may overflow.
+   */
+  public boolean isTimedOut(final long startNanos)
+  {
+    return timeoutMillis != NO_TIMEOUT
+        && System.nanoTime() - startNanos > TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+  }
+  
+  public CancellationToken getCancellationToken()
+  {
+    return this.token;
+  }
+  public int getMaxExpansions()
+  {
+    return this.maxExpansions;
+  }
+  public int getMaxPathLength()
+  {
+    return this.maxPathLength;
+  }
+  public long getTimeoutMillis()
+  {
+    return this.timeoutMillis;
+  }
+  public void setCancellationToken(final CancellationToken t)
+  {
+    this.token = t;
+  }
+  public void setMaxExpansions(final int max)
+  {
+    if (max < 0)
+    {
+      throw new IllegalArgumentException("maxExpansions must not be negative: " + max);
+    }
+    this.maxExpansions = max;
+  }
+  public void setMaxPathLength(final int max)
+  {
+    if (max < 0)
+    {
+      throw new IllegalArgumentException("maxPathLength must not be negative: " + max);
+    }
+    this.maxPathLength = max;
+  }
+  public void setTimeoutMillis(final long millis)
+  {
+    if (millis < 0)
+    {
+      throw new IllegalArgumentException("timeoutMillis must not be negative: " + millis);
+    }
+    this.timeoutMillis = millis;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * A Flow.Processor that turns a stream of WordPairs into a stream of SearchResults using an AsyncShortestPath.
+ * It never requests more pairs from upstream than it has room to search, and publishing a result waits while a
+ * subscriber's buffer is full, so a slow subscriber slows the searches, which in turn slows the requests made
+ * upstream.  Results are published in the order the searches finish, not the order the pairs arrived.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryProcessor extends SubmissionPublisher<SearchResult> implements Flow.Processor<WordPair, SearchResult>
+{
+  private final AsyncShortestPath ENGINE;
+  private final QueryOptions OPTIONS;
+  private final int WINDOW; //Pairs requested from upstream before any result is published
+  private final AtomicInteger inFlight;
+  private volatile boolean upstreamDone;
+  private Flow.Subscription subscription;
+  
+  public QueryProcessor(final AsyncShortestPath engine, final QueryOptions options, final int window)
+  {
+    super();
+    this.ENGINE = engine;
+    this.OPTIONS = options;
+    this.WINDOW = window;
+    this.inFlight = new AtomicInteger();
+    this.upstreamDone = false;
+  }
+  
+  @Override
+  public void onSubscribe(final Flow.Subscription s)
+  {
+    this.subscription = s;
+    s.request(WINDOW);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     WordPair pair: The next pair to search
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Submits the pair to the engine.  When its search ends the result is published and one more pair is
+   *   requested from upstream.  If the engine turns the pair away, because it was closed or this thread was
+   *   interrupted, upstream is cancelled and subscribers are told of the failure.
+   */
+  @Override
+  public void onNext(final WordPair pair)
+  {
+    inFlight.incrementAndGet();
+    try
+    {
+      ENGINE.submit(pair.getStart(), pair.getEnd(), OPTIONS).whenComplete((result, failure) ->
+      {
+        if (failure != null)
+        {
+          subscription.cancel();
+          closeExceptionally(failure);
+          return;
+        }
+        submit(result);
+        subscription.request(1);
+        if (inFlight.decrementAndGet() == 0 && upstreamDone)
+        {
+          close();
+        }
+      });
+    }
+    catch (InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+      fail(e);
+    }
+    catch (RejectedExecutionException e)
+    {
+      fail(e);
+    }
+  }
+  
+  /*
+   * Gives up on a pair that never reached the engine, so it is no longer counted as in flight.
+   */
+  private void fail(final Throwable failure)
+  {
+    inFlight.decrementAndGet();
+    subscription.cancel();
+    closeExceptionally(failure);
+  }
+  
+  @Override
+  public void onError(final Throwable t)
+  {
+    closeExceptionally(t);
+  }
+  
+  /*
+   * Closes the publisher once every pair already received has been searched and published.
+   */
+  @Override
+  public void onComplete()
+  {
+    upstreamDone = true;
+    if (inFlight.get() == 0)
+    {
+      close();
+    }
+  }
+}
@@ -0,0 +1,321 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Measures how building a CompactWordGraph and querying it scale with the size of the dictionary.  For every size
+ * a SyntheticDictionary is written, then a new JVM loads it, runs a fixed mix of queries and reports the build
+ * time, memory, query throughput and latency percentiles.  Each size gets its own JVM so that the peak resident
+ * memory reported belongs to that size alone.
+ *
+ * Usage: ScalingBenchmark [--sizes 10000,100000,1000000] [--seed 42] [--density 0.5] [--alphabet abc...]
+ *                         [--lengths 3:1,4:4,...] [--queries 1000] [--timeout-ms 1000] [--plain] [--heap 4g]
+ *                         [--dir directory]
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ScalingBenchmark
+{
+  private static final String RESULT_PREFIX = "RESULT ";
+  private static final int MAX_WALK = 6; //Longest random walk used to pick the end word of a nearby pair
+
+  public static void main(String[] args) throws IOException, InterruptedException
+  {
+    Map<String, String> options = parseOptions(args);
+    if (options.containsKey("run"))
+    {
+      runOne(options);
+    }
+    else
+    {
+      sweep(options);
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     Map<String, String> options: The command line options
+   *   Outputs:
+   *     A table with one row per dictionary size
+   * Return Value:
+   *   void
+   * Description:
+   *   Writes a dictionary of each size, unless one with the same settings was already written, and measures it in
+   *   a new JVM started with the same class path.
+   */
+  private static void sweep(final Map<String, String> options) throws IOException, InterruptedException
+  {
+    long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    double density = Double.parseDouble(options.getOrDefault("density", "0.5"));
+    String alphabet = options.getOrDefault("alphabet", SyntheticDictionary.DEFAULT_ALPHABET);
+    String lengths = options.get("lengths");
+    double[] weights = (lengths == null) ? SyntheticDictionary.englishLengths() : SyntheticDictionary.parseLengths(lengths);
+    Path dir = Paths.get(options.getOrDefault("dir", System.getProperty("java.io.tmpdir")));
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+    System.out.format("%10s %10s %11s %9s %9s %11s %8s %8s %8s %9s %9s %9s %9s %9s %6s%n", "size", "words",
+        "edges", "gen ms", "build ms", "build w/s", "B/edge", "heap MB", "rss MB", "q/s", "p50 us", "p90 us",
+        "p99 us", "max us", "found");
+    for (String size: options.getOrDefault("sizes", "10000,100000,1000000").split(","))
+    {
+      int words = Integer.parseInt(size.trim());
+      Path file = dir.resolve(String.format("synthetic-%d-%d-%d-%s.txt", words, seed,
+          Arrays.hashCode(weights), Integer.toHexString((alphabet + density).hashCode())));
+      long genMillis = 0;
+      if (!Files.exists(file))
+      {
+        long before = System.nanoTime();
+        new SyntheticDictionary(seed, words, alphabet, weights, density).write(file.toString());
+        genMillis = (System.nanoTime() - before) / 1000000L;
+      }
+
+      List<String> command = new ArrayList<>();
+      command.add(java);
+      command.add("-Xmx" + options.getOrDefault("heap", "4g"));
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(ScalingBenchmark.class.getName());
+      command.add("--run");
+      command.add(file.toString());
+      for (String key: new String[] {"seed", "queries", "timeout-ms"})
+      {
+        if (options.containsKey(key))
+        {
+          command.add("--" + key);
+          command.add(options.get(key));
+        }
+      }
+      if (options.containsKey("plain"))
+      {
+        command.add("--plain");
+      }
+      Map<String, String> result = runChild(command);
+      if (result == null)
+      {
+        System.out.format("%10d  failed, see the output above%n", words);
+        continue;
+      }
+      System.out.format("%10d %10s %11s %9d %9s %11s %8s %8s %8s %9s %9s %9s %9s %9s %6s%n", words,
+          result.get("words"), result.get("edges"), genMillis, result.get("buildMs"), result.get("buildRate"),
+          result.get("bytesPerEdge"), result.get("heapMb"), result.get("rssMb"), result.get("qps"),
+          result.get("p50"), result.get("p90"), result.get("p99"), result.get("max"), result.get("found"));
+    }
+  }
+
+  /*
+   * Runs the command and returns the key=value pairs of the line it prints starting with RESULT_PREFIX, or null
+   * if it fails.  Everything else the child prints is passed through.
+   */
+  private static Map<String, String> runChild(final List<String> command) throws IOException, InterruptedException
+  {
+    Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    Map<String, String> result = null;
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+        StandardCharsets.UTF_8)))
+    {
+      String line;
+      while ((line = reader.readLine()) != null)
+      {
+        if (line.startsWith(RESULT_PREFIX))
+        {
+          result = new HashMap<>();
+          for (String pair: line.substring(RESULT_PREFIX.length()).split(" "))
+          {
+            int eq = pair.indexOf('=');
+            result.put(pair.substring(0, eq), pair.substring(eq + 1));
+          }
+        }
+        else
+        {
+          System.out.println(line);
+        }
+      }
+    }
+    return (process.waitFor() == 0) ? result : null;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     Map<String, String> options: The command line options, with run naming the dictionary
+   *   Outputs:
+   *     One line starting with RESULT_PREFIX holding the measurements as key=value pairs
+   * Return Value:
+   *   void
+   * Description:
+   *   Builds the graph and runs the query mix, timing each query on its own.
+   * Algorithm:
+   *   Half of the queries join two random words, which are often unconnected and exercise the worst case.  The
+   *   other half end at a word reached by a random walk of one to MAX_WALK steps from the start word, like the
+   *   ladders people ask for.  The first tenth of the mix is run once beforehand so the timings are of compiled
+   *   code.
+   */
+  private static void runOne(final Map<String, String> options)
+  {
+    long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+    int queries = Integer.parseInt(options.getOrDefault("queries", "1000"));
+    QueryOptions queryOptions = new QueryOptions();
+    queryOptions.setTimeoutMillis(Long.parseLong(options.getOrDefault("timeout-ms", "1000")));
+
+    long before = System.nanoTime();
+    CompactWordGraph graph = new CompactWordGraph(options.get("run"), !options.containsKey("plain"));
+    long buildNanos = System.nanoTime() - before;
+    Adjacency adjacency = graph.getAdjacency();
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    long heap = runtime.totalMemory() - runtime.freeMemory();
+
+    String[][] pairs = queryMix(graph, queries, seed);
+    for (int i = 0; i < pairs.length / 10; i++)
+    {
+      ShortestPath.findShortestPath(pairs[i][0], pairs[i][1], graph, queryOptions);
+    }
+    long[] latencies = new long[pairs.length];
+    int found = 0;
+    long total = 0;
+    for (int i = 0; i < pairs.length; i++)
+    {
+      long start = System.nanoTime();
+      SearchResult result = ShortestPath.findShortestPath(pairs[i][0], pairs[i][1], graph, queryOptions);
+      latencies[i] = System.nanoTime() - start;
+      total += latencies[i];
+      if (result.isFound())
+      {
+        found++;
+      }
+    }
+    Arrays.sort(latencies);
+
+    StringBuilder sb = new StringBuilder(RESULT_PREFIX);
+    sb.append("words=").append(graph.size());
+    sb.append(" edges=").append(adjacency.edgeCount());
+    sb.append(" buildMs=").append(buildNanos / 1000000L);
+    sb.append(" buildRate=").append((long)(graph.size() / Math.max(1e-9, buildNanos / 1e9)));
+    sb.append(String.format(" bytesPerEdge=%.2f", (double)adjacency.sizeInBytes() / Math.max(1, adjacency.edgeCount())));
+    sb.append(" heapMb=").append(heap >> 20);
+    sb.append(" rssMb=").append(peakRssKb() >> 10);
+    sb.append(" qps=").append((long)(pairs.length / Math.max(1e-9, total / 1e9)));
+    sb.append(" p50=").append(percentileMicros(latencies, 0.50));
+    sb.append(" p90=").append(percentileMicros(latencies, 0.90));
+    sb.append(" p99=").append(percentileMicros(latencies, 0.99));
+    sb.append(" max=").append(percentileMicros(latencies, 1.0));
+    sb.append(String.format(" found=%.0f%%", 100.0 * found / Math.max(1, pairs.length)));
+    System.out.println(sb);
+  }
+
+  private static String[][] queryMix(final CompactWordGraph graph, final int queries, final long seed)
+  {
+    String[][] pairs = new String[(graph.size() == 0) ? 0 : queries][];
+    Random random = new Random(seed);
+    NeighborCursor cursor = graph.getAdjacency().cursor();
+    for (int i = 0; i < pairs.length; i++)
+    {
+      int start = random.nextInt(graph.size());
+      int end;
+      if (i % 2 == 0)
+      {
+        end = random.nextInt(graph.size());
+      }
+      else
+      {
+        end = start;
+        int steps = 1 + random.nextInt(MAX_WALK);
+        for (int step = 0; step < steps; step++)
+        {
+          int degree = graph.getAdjacency().degree(end);
+          if (degree == 0)
+          {
+            break;
+          }
+          int pick = random.nextInt(degree);
+          cursor.reset(end);
+          int next = cursor.next();
+          for (int k = 0; k < pick; k++)
+          {
+            next = cursor.next();
+          }
+          end = next;
+        }
+      }
+      pairs[i] = new String[] {graph.getWord(start), graph.getWord(end)};
+    }
+    return pairs;
+  }
+
+  private static long percentileMicros(final long[] sorted, final double percentile)
+  {
+    if (sorted.length == 0)
+    {
+      return 0;
+    }
+    int index = (int)Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000L;
+  }
+
+  /*
+   * Reads the peak resident set size of this process from /proc/self/status, or returns -1 where there is none.
+   */
+  private static long peakRssKb()
+  {
+    File status = new File("/proc/self/status");
+    if (!status.exists())
+    {
+      return -1;
+    }
+    try
+    {
+      for (String line: Files.readAllLines(status.toPath()))
+      {
+        if (line.startsWith("VmHWM:"))
+        {
+          return Long.parseLong(line.replaceAll("[^0-9]", ""));
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      System.err.println("Failed to read " + status + ".");
+    }
+    return -1;
+  }
+
+  /*
+   * Turns --name value pairs into a map.  Options without a value, such as --plain, map to an empty string.
+   */
+  private static Map<String, String> parseOptions(final String[] args)
+  {
+    Map<String, String> options = new HashMap<>();
+    for (int i = 0; i < args.length; i++)
+    {
+      if (!args[i].startsWith("--"))
+      {
+        throw new IllegalArgumentException("Expected an option starting with -- but found " + args[i]);
+      }
+      String name = args[i].substring(2);
+      if (i + 1 < args.length && !args[i + 1].startsWith("--"))
+      {
+        options.put(name, args[++i]);
+      }
+      else
+      {
+        options.put(name, "");
+      }
+    }
+    return options;
+  }
+}
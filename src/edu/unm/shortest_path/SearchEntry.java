@@ -0,0 +1,41 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * A word waiting in the search queue of a single query.  Keeping the weight and the path back to the start word
+ * here rather than on the WordNode leaves the graph untouched, so several queries can search it at once.
+ */
+
+package edu.unm.shortest_path;
+
+class SearchEntry
+{
+  private final WordNode NODE;
+  private final SearchEntry PARENT; //The entry this word was reached from, null for the start word
+  private final int DEPTH; //Number of moves from the start word
+  private final int WEIGHT; //Sum of Levenshtein distance and path length
+  
+  SearchEntry(final WordNode node, final SearchEntry parent, final int weight)
+  {
+    this.NODE = node;
+    this.PARENT = parent;
+    this.DEPTH = (parent == null) ? 0 : parent.getDepth() + 1;
+    this.WEIGHT = weight;
+  }
+  
+  int getDepth()
+  {
+    return this.DEPTH;
+  }
+  WordNode getNode()
+  {
+    return this.NODE;
+  }
+  SearchEntry getParent()
+  {
+    return this.PARENT;
+  }
+  int getWeight()
+  {
+    return this.WEIGHT;
+  }
+}
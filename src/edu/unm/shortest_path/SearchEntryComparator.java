@@ -0,0 +1,21 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * This is a simple utility class used by the priority queue in ShortestPath to
+ * prioritize SearchEntry objects by weight.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Comparator;
+
+class SearchEntryComparator implements Comparator<SearchEntry>
+{
+
+  @Override
+  public int compare(SearchEntry o1, SearchEntry o2)
+  {
+    return Integer.compare(o1.getWeight(), o2.getWeight());
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * This class holds the outcome of a shortest path query along with statistics about the search that produced it.
+ * The statistics are filled in whether or not a path was found, so a query that ran out of budget still reports
+ * how far it got.
+ */
+
+package edu.unm.shortest_path;
+
+import java.util.Collections;
+import java.util.List;
+
+public class SearchResult
+{
+  public enum Status
+  {
+    FOUND, //A path was found
+    NO_PATH, //The whole reachable graph was searched without finding the end word
+    NOT_IN_DICTIONARY, //The start or end word is not in the dictionary
+    BUDGET_EXCEEDED, //A limit from QueryOptions stopped the search before it could finish
+    CANCELLED //The query's CancellationToken was cancelled
+  }
+  
+  public enum Budget
+  {
+    TIME,
+    EXPANSIONS,
+    PATH_LENGTH
+  }
+  
+  private final String START;
+  private final String END;
+  private final Status STATUS;
+  private final Budget BUDGET; //The limit that was hit, null unless STATUS is BUDGET_EXCEEDED
+  private final List<String> PATH;
+  private final int NODES_EXPANDED;
+  private final int NODES_QUEUED;
+  private final long ELAPSED_NANOS;
+  
+  public SearchResult(final String start, final String end, final Status status, final Budget budget, final List<String> path, final int nodesExpanded,
+      final int nodesQueued, final long elapsedNanos)
+  {
+    this.START = start;
+    this.END = end;
+    this.STATUS = status;
+    this.BUDGET = budget;
+    this.PATH = (path == null) ? Collections.<String>emptyList() : Collections.unmodifiableList(path);
+    this.NODES_EXPANDED = nodesExpanded;
+    this.NODES_QUEUED = nodesQueued;
+    this.ELAPSED_NANOS = elapsedNanos;
+  }
+  
+  public String getEnd()
+  {
+    return this.END;
+  }
+  public Budget getExceededBudget()
+  {
+    return this.BUDGET;
+  }
+  public long getElapsedNanos()
+  {
+    return this.ELAPSED_NANOS;
+  }
+  public int getNodesExpanded()
+  {
+    return this.NODES_EXPANDED;
+  }
+  public int getNodesQueued()
+  {
+    return this.NODES_QUEUED;
+  }
+  /*
+   * The words from start to end, inclusive.  Empty unless the status is FOUND.
+   */
+  public List<String> getPath()
+  {
+    return this.PATH;
+  }
+  public String getStart()
+  {
+    return this.START;
+  }
+  public Status getStatus()
+  {
+    return this.STATUS;
+  }
+  public boolean isFound()
+  {
+    return this.STATUS == Status.FOUND;
+  }
+  
+  @Override
+  public String toString()
+  {
+    String outcome = (STATUS == Status.BUDGET_EXCEEDED) ? "BUDGET_EXCEEDED (" + BUDGET + ")" : STATUS.toString();
+    return String.format("%s -> %s: %s path=%s expanded=%d queued=%d elapsed=%.3fms", START, END, outcome, PATH,
+        NODES_EXPANDED,
+        NODES_QUEUED, ELAPSED_NANOS / 1e6);
+  }
+}
@@ -0,0 +1,377 @@
+/*
+ * Nicholas Spurlock
+ *
+ * One shard of a word graph split across processes by ShardedShortestPath.  Words are numbered as in
+ * CompactWordGraph, by length and then alphabetically, and each shard owns the words of a range of lengths, so the
+ * words of a shard have consecutive ids.  A worker keeps its own words and their edges, together with the visited
+ * marks and parents of the current search for them, and answers the coordinator's requests over a local socket.
+ *
+ * A word's neighbors are at most one letter longer or shorter, so to find the edges of its own words a worker
+ * reads only the words of its lengths and of the two lengths around them.  It lets the words of the neighboring
+ * lengths go once its edges are built.
+ *
+ * Usage: ShardWorker <port> <shard> <minLength> <maxLength> <dictionary> [--plain]
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Locale;
+
+public class ShardWorker
+{
+  //Requests from the coordinator.  All but BEGIN and CLOSE are answered.
+  static final byte LOOKUP = 1; //UTF word: answered with its id, or -1 if it is not in the dictionary
+  static final byte BEGIN = 2; //int start word: starts a new search
+  static final byte EXPAND = 3; //int count, count word ids
+  static final byte VISIT = 4; //int count, count pairs of word id and parent id
+  static final byte STEP = 5; //int word id: answered with the id of its parent and the word
+  static final byte CLOSE = 6;
+
+  private final int SHARD;
+  private CompactWordGraph graph; //This shard's words and those one letter shorter and longer, until the edges are built
+  private int graphFirst; //Id in the graph of this shard's first word
+  private int first; //Id of this shard's first word
+  private String[] words; //This shard's words, word first + k at k
+  private Adjacency adjacency; //Node k holds the neighbors of word first + k
+  private NeighborCursor cursor;
+  private int[] mark; //mark[k] is epoch if word first + k was visited by the current search
+  private int[] parent; //The word each visited word was reached from, -1 for the start word
+  private int epoch;
+  private int[] ids; //The words of the request being answered
+  private int[] found; //Words of this shard newly visited by the request being answered
+  private int[] remote; //Pairs of neighbor and parent found by EXPAND for other shards to visit
+
+  /*
+   * Reads the words of lengths minLength to maxLength, which this shard owns, and of the lengths just outside
+   * them.  The edges are built by buildEdges once the ids of the other shards are known.
+   */
+  public ShardWorker(final String dictionaryPath, final int shard, final int minLength, final int maxLength)
+  {
+    this.SHARD = shard;
+    this.graph = (minLength > maxLength) ? new CompactWordGraph(dictionaryPath, 1, 0)
+        : new CompactWordGraph(dictionaryPath, minLength - 1, maxLength + 1);
+    this.graphFirst = graph.firstOfLength(minLength);
+    this.words = new String[graph.firstOfLength(maxLength + 1) - graphFirst];
+    for (int k = 0; k < words.length; k++)
+    {
+      words[k] = graph.getWord(graphFirst + k);
+    }
+    this.ids = new int[0];
+    this.remote = new int[0];
+  }
+
+  public int getWordCount()
+  {
+    return words.length;
+  }
+  public Adjacency getAdjacency()
+  {
+    return this.adjacency;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int[] shardStarts: The id of the first word of each shard, followed by the number of words
+   *     boolean compressed: Whether to keep the edges as a CompressedAdjacency or a PlainAdjacency
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Builds the edges of this shard's words and drops the words of the lengths around them.
+   * Algorithm:
+   *   Ids in the loaded graph count from its first word, one length below this shard's, so adding the difference
+   *   between this shard's first id and its first id in the graph turns them into ids in the whole dictionary.
+   */
+  public void buildEdges(final int[] shardStarts, final boolean compressed)
+  {
+    first = shardStarts[SHARD];
+    AdjacencyBuilder builder = compressed ? new CompressedAdjacency.Builder(words.length)
+        : new PlainAdjacency.Builder(words.length);
+    adjacency = graph.buildAdjacency(builder, graphFirst, graphFirst + words.length, first - graphFirst);
+    graph = null;
+    cursor = adjacency.cursor();
+    mark = new int[words.length];
+    parent = new int[words.length];
+    epoch = 0;
+    found = new int[words.length];
+  }
+
+  /*
+   * Returns the shard whose range holds value, given the start of each shard's range followed by the end of the
+   * last, or -1 if no range holds it.  Shards with empty ranges are never returned.
+   */
+  static int findShard(final int[] starts, final int value)
+  {
+    if (value < starts[0] || value >= starts[starts.length - 1])
+    {
+      return -1;
+    }
+    int lo = 0;
+    int hi = starts.length - 2;
+    while (lo < hi)
+    {
+      int mid = (lo + hi + 1) >>> 1;
+      if (starts[mid] <= value)
+      {
+        lo = mid;
+      }
+      else
+      {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  private boolean owns(final int id)
+  {
+    return id >= first && id - first < words.length;
+  }
+
+  /*
+   * Marks word first + node visited from the given word, returning false if it already was.
+   */
+  private boolean visit(final int node, final int from)
+  {
+    if (mark[node] == epoch)
+    {
+      return false;
+    }
+    mark[node] = epoch;
+    parent[node] = from;
+    return true;
+  }
+
+  /*
+   * Binary searches this shard's words, which are ordered by length and then alphabetically.
+   */
+  private int indexOf(final String word)
+  {
+    int lo = 0;
+    int hi = words.length - 1;
+    while (lo <= hi)
+    {
+      int mid = (lo + hi) >>> 1;
+      int cmp = Integer.compare(words[mid].length(), word.length());
+      if (cmp == 0)
+      {
+        cmp = words[mid].compareTo(word);
+      }
+      if (cmp < 0)
+      {
+        lo = mid + 1;
+      }
+      else if (cmp > 0)
+      {
+        hi = mid - 1;
+      }
+      else
+      {
+        return first + mid;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     DataInputStream in: The requests of the coordinator
+   *   Outputs:
+   *     DataOutputStream out: The answers to the requests
+   * Return Value:
+   *   void
+   * Description:
+   *   Answers requests until CLOSE, or until the coordinator closes the connection.
+   * Algorithm:
+   *   EXPAND visits each neighbor of the given words that this shard owns, recording the expanded word as its
+   *   parent, and answers with the neighbors newly visited followed by the neighbors owned by other shards, paired
+   *   with their parents.  VISIT visits the given pairs of words and parents and answers with the words newly
+   *   visited.
+   */
+  public void serve(final DataInputStream in, final DataOutputStream out) throws IOException
+  {
+    while (true)
+    {
+      byte request = in.readByte();
+      switch (request)
+      {
+        case LOOKUP:
+          out.writeInt(indexOf(in.readUTF().toLowerCase(Locale.ROOT)));
+          out.flush();
+          break;
+        case BEGIN:
+        {
+          int start = in.readInt();
+          if (++epoch == Integer.MAX_VALUE)
+          {
+            Arrays.fill(mark, 0);
+            epoch = 1;
+          }
+          if (owns(start))
+          {
+            visit(start - first, -1);
+          }
+          break;
+        }
+        case EXPAND:
+        {
+          int count = readIds(in, 1);
+          int newlyFound = 0;
+          int remoteCount = 0;
+          for (int i = 0; i < count; i++)
+          {
+            int id = ids[i];
+            cursor.reset(id - first);
+            for (int next = cursor.next(); next >= 0; next = cursor.next())
+            {
+              if (owns(next))
+              {
+                if (visit(next - first, id))
+                {
+                  found[newlyFound++] = next;
+                }
+              }
+              else
+              {
+                if (2 * remoteCount + 2 > remote.length)
+                {
+                  remote = Arrays.copyOf(remote, Math.max(64, 2 * remote.length));
+                }
+                remote[2 * remoteCount] = next;
+                remote[2 * remoteCount + 1] = id;
+                remoteCount++;
+              }
+            }
+          }
+          writeIds(out, found, newlyFound, 1);
+          writeIds(out, remote, remoteCount, 2);
+          out.flush();
+          break;
+        }
+        case VISIT:
+        {
+          int count = readIds(in, 2);
+          int newlyFound = 0;
+          for (int i = 0; i < count; i++)
+          {
+            if (visit(ids[2 * i] - first, ids[2 * i + 1]))
+            {
+              found[newlyFound++] = ids[2 * i];
+            }
+          }
+          writeIds(out, found, newlyFound, 1);
+          out.flush();
+          break;
+        }
+        case STEP:
+        {
+          int id = in.readInt();
+          out.writeInt(parent[id - first]);
+          out.writeUTF(words[id - first]);
+          out.flush();
+          break;
+        }
+        case CLOSE:
+          return;
+        default:
+          throw new IOException("Unknown request " + request + " from the coordinator.");
+      }
+    }
+  }
+
+  /*
+   * Reads a count followed by count groups of width ints into ids and returns the count.
+   */
+  private int readIds(final DataInputStream in, final int width) throws IOException
+  {
+    int count = in.readInt();
+    if (ids.length < width * count)
+    {
+      ids = new int[Math.max(width * count, 2 * ids.length)];
+    }
+    for (int i = 0; i < width * count; i++)
+    {
+      ids[i] = in.readInt();
+    }
+    return count;
+  }
+
+  /*
+   * Writes count followed by count groups of width ints from values, as readIds reads them.
+   */
+  static void writeIds(final DataOutputStream out, final int[] values, final int count, final int width)
+      throws IOException
+  {
+    out.writeInt(count);
+    for (int i = 0; i < width * count; i++)
+    {
+      out.writeInt(values[i]);
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String[] args: The port of the coordinator, the shard, its lengths, the dictionary and --plain if the
+   *       edges are not to be compressed
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Reads this shard's words, then connects to the coordinator and serves it until it is done.
+   * Algorithm:
+   *   The worker sends its shard and the number of words it owns, and the coordinator answers with the first id
+   *   of every shard, which it can only know once every shard has counted its words.  The worker then builds its
+   *   edges and sends their number and size before answering requests.
+   */
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 5)
+    {
+      System.out.println("Usage: ShardWorker <port> <shard> <minLength> <maxLength> <dictionary> [--plain]");
+      return;
+    }
+    int port = Integer.parseInt(args[0]);
+    int shard = Integer.parseInt(args[1]);
+    int minLength = Integer.parseInt(args[2]);
+    int maxLength = Integer.parseInt(args[3]);
+    boolean compressed = !(args.length > 5 && args[5].equals("--plain"));
+    ShardWorker worker = new ShardWorker(args[4], shard, minLength, maxLength);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+    {
+      socket.setTcpNoDelay(true);
+      DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      out.writeInt(shard);
+      out.writeInt(worker.getWordCount());
+      out.flush();
+      int[] shardStarts = new int[in.readInt()];
+      for (int i = 0; i < shardStarts.length; i++)
+      {
+        shardStarts[i] = in.readInt();
+      }
+      worker.buildEdges(shardStarts, compressed);
+      out.writeLong(worker.getAdjacency().edgeCount());
+      out.writeLong(worker.getAdjacency().sizeInBytes());
+      out.flush();
+      worker.serve(in, out);
+    }
+    catch (EOFException e)
+    {
+      //The coordinator closed the connection without CLOSE, so there is no one left to answer
+    }
+  }
+}
@@ -0,0 +1,691 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Finds shortest paths in a word graph split across several local processes, for dictionaries too large for one
+ * heap.  The words are divided into shards by length, each shard a range of lengths holding about the same number
+ * of words, and the constructor starts one ShardWorker process per shard to keep the words and edges of its
+ * lengths (see ShardWorker).  This process keeps no words at all.  It asks the owner of a word's length for the
+ * word's id, and the owner of an id for its word.
+ *
+ * A shard holds at least one length, so with more shards than there are lengths of about equal size some shards
+ * are larger than others, and some may be empty.
+ *
+ * A search is a breadth first search run one level at a time.  Every worker expands its part of the level at once
+ * and sends back the neighbors it visited itself along with the neighbors other shards own, which are then sent on
+ * to their owners in one batch each.  Requests and answers are ints over local sockets.
+ *
+ * Usage: ShardedShortestPath <dictionary> <shards> [--plain] [--heap size] [--verify queries] [start end]...
+ *   --verify runs the given number of random queries on both the shards and a CompactWordGraph in this process,
+ *   and reports any query whose result or path length differs.
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+public class ShardedShortestPath implements AutoCloseable
+{
+  private static final int ACCEPT_POLL_MILLIS = 1000; //How often to check that no worker died while waiting for them
+  private static final int CLOSE_WAIT_SECONDS = 5;
+
+  private final int SHARDS;
+  private final List<Process> workers;
+  private final Socket[] sockets;
+  private final DataInputStream[] in;
+  private final DataOutputStream[] out;
+  private final IntList[] frontier; //frontier[s] holds the words of shard s in the level being expanded
+  private final IntList[] next; //next[s] holds the words of shard s in the level after it
+  private final IntList[] routed; //routed[s] holds the pairs of word and parent to send to shard s
+  private final int[] lengthStarts; //Shard s owns the words of lengths lengthStarts[s] up to lengthStarts[s + 1]
+  private final int[] starts; //starts[s] is the id of the first word of shard s, starts[shards] the number of words
+  private long edgeCount;
+  private long workerBytes; //Memory of the edges held by all the workers
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String dictionaryPath: The path to the dictionary
+   *     int shards: The number of worker processes to split the graph across
+   *     boolean compressed: Whether the workers keep their edges as a CompressedAdjacency or a PlainAdjacency
+   *     String workerHeap: The maximum heap of each worker, such as 512m, or null for the JVM's default
+   * Description:
+   *   Divides the lengths among the shards, starts the workers and waits until each has built its edges.  The
+   *   workers are stopped if any of them fails.
+   * Algorithm:
+   *   The words of each length are counted without keeping them, and the lengths are divided among the shards by
+   *   divideLengths.
+   */
+  public ShardedShortestPath(final String dictionaryPath, final int shards, final boolean compressed,
+      final String workerHeap) throws IOException
+  {
+    if (shards < 1)
+    {
+      throw new IllegalArgumentException("shards must be at least 1: " + shards);
+    }
+    this.SHARDS = shards;
+    this.workers = new ArrayList<>();
+    this.sockets = new Socket[shards];
+    this.in = new DataInputStream[shards];
+    this.out = new DataOutputStream[shards];
+    this.frontier = new IntList[shards];
+    this.next = new IntList[shards];
+    this.routed = new IntList[shards];
+    this.lengthStarts = divideLengths(DictionaryLoader.countLengths(dictionaryPath), shards);
+    this.starts = new int[shards + 1];
+    for (int s = 0; s < shards; s++)
+    {
+      frontier[s] = new IntList();
+      next[s] = new IntList();
+      routed[s] = new IntList();
+    }
+    try (ServerSocket server = new ServerSocket(0, shards, InetAddress.getLoopbackAddress()))
+    {
+      for (int s = 0; s < shards; s++)
+      {
+        workers.add(startWorker(server.getLocalPort(), s, lengthStarts[s], lengthStarts[s + 1] - 1, dictionaryPath,
+            compressed, workerHeap));
+      }
+      connect(server);
+    }
+    catch (IOException | RuntimeException e)
+    {
+      close();
+      throw e;
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int[] counts: The number of words of each length
+   *     int shards: The number of shards to divide the lengths among
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The first length of each shard followed by one past the longest length
+   * Description:
+   *   Divides the lengths into ranges so that the largest shard is as small as it can be.  Shards left over once
+   *   every length has one are empty and come last.
+   * Algorithm:
+   *   A binary search for the smallest shard size the lengths can be packed into, filling each shard in order with
+   *   as many lengths as fit.
+   */
+  private static int[] divideLengths(final int[] counts, final int shards)
+  {
+    long lo = 0;
+    long hi = 0;
+    for (int count: counts)
+    {
+      lo = Math.max(lo, count);
+      hi += count;
+    }
+    while (lo < hi)
+    {
+      long mid = (lo + hi) >>> 1;
+      if (packLengths(counts, shards, mid) != null)
+      {
+        hi = mid;
+      }
+      else
+      {
+        lo = mid + 1;
+      }
+    }
+    return packLengths(counts, shards, lo);
+  }
+
+  /*
+   * Fills each shard in order with as many lengths as fit in capacity words, returning the first length of each
+   * shard followed by one past the longest length, or null if the lengths need more shards than there are.
+   */
+  private static int[] packLengths(final int[] counts, final int shards, final long capacity)
+  {
+    int longest = Math.max(1, counts.length);
+    int[] split = new int[shards + 1];
+    Arrays.fill(split, longest);
+    split[0] = 1;
+    int shard = 0;
+    long size = 0;
+    for (int length = 1; length < counts.length; length++)
+    {
+      if (size + counts[length] > capacity)
+      {
+        if (++shard == shards)
+        {
+          return null;
+        }
+        split[shard] = length;
+        size = 0;
+      }
+      size += counts[length];
+    }
+    return split;
+  }
+
+  /*
+   * Starts a worker for one shard in a new JVM with the class path of this one.  Its output goes to this
+   * process's output.
+   */
+  private static Process startWorker(final int port, final int shard, final int minLength, final int maxLength,
+      final String dictionaryPath, final boolean compressed, final String workerHeap) throws IOException
+  {
+    List<String> command = new ArrayList<>();
+    command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+    if (workerHeap != null)
+    {
+      command.add("-Xmx" + workerHeap);
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(ShardWorker.class.getName());
+    command.add(Integer.toString(port));
+    command.add(Integer.toString(shard));
+    command.add(Integer.toString(minLength));
+    command.add(Integer.toString(maxLength));
+    command.add(dictionaryPath);
+    if (!compressed)
+    {
+      command.add("--plain");
+    }
+    return new ProcessBuilder(command).inheritIO().start();
+  }
+
+  /*
+   * Accepts a connection from every worker.  Each worker says which shard it is and how many words it owns as
+   * soon as it connects, and once all have, each is sent the first id of every shard and answers with the size of
+   * its edges when they are built.  Gives up if a worker exits first.
+   */
+  private void connect(final ServerSocket server) throws IOException
+  {
+    server.setSoTimeout(ACCEPT_POLL_MILLIS);
+    int connected = 0;
+    while (connected < SHARDS)
+    {
+      Socket socket;
+      try
+      {
+        socket = server.accept();
+      }
+      catch (SocketTimeoutException e)
+      {
+        for (int s = 0; s < SHARDS; s++)
+        {
+          if (!workers.get(s).isAlive() && sockets[s] == null)
+          {
+            throw new IOException("Shard worker " + s + " exited with code " + workers.get(s).exitValue()
+                + " before connecting.");
+          }
+        }
+        continue;
+      }
+      socket.setTcpNoDelay(true);
+      DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+      int shard = input.readInt();
+      sockets[shard] = socket;
+      in[shard] = input;
+      out[shard] = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+      starts[shard + 1] = input.readInt();
+      connected++;
+    }
+    for (int s = 0; s < SHARDS; s++)
+    {
+      starts[s + 1] += starts[s];
+    }
+    for (int s = 0; s < SHARDS; s++)
+    {
+      out[s].writeInt(starts.length);
+      for (int start: starts)
+      {
+        out[s].writeInt(start);
+      }
+      out[s].flush();
+    }
+    for (int s = 0; s < SHARDS; s++)
+    {
+      edgeCount += in[s].readLong();
+      workerBytes += in[s].readLong();
+    }
+  }
+
+  public long getEdgeCount()
+  {
+    return this.edgeCount;
+  }
+  public int getShards()
+  {
+    return this.SHARDS;
+  }
+  /*
+   * The memory of the edges held by all the workers together, not counting their words.
+   */
+  public long getWorkerBytes()
+  {
+    return this.workerBytes;
+  }
+  public int size()
+  {
+    return starts[SHARDS];
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String start: The word to start from
+   *     String end: The word to find the shortest path to
+   *     QueryOptions options: The limits of the search
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   A SearchResult with the path, or the reason there is none
+   * Description:
+   *   Searches the shards for a shortest path.  Searches run one at a time, since each worker holds the marks of one
+   *   search.  An IOException means a worker failed and the shards can no longer be searched.
+   * Algorithm:
+   *   Each level is expanded in two rounds.  Every worker with words in the level gets them in one EXPAND and
+   *   answers with the neighbors of its own it visited and the neighbors owned by other shards, paired with the
+   *   word they were reached from.  Those pairs are grouped by owner and sent in one VISIT per worker, which
+   *   answers with the ones not visited before.  Requests to all the workers are sent before any answer is read so
+   *   the workers expand in parallel.  A word is visited at most once however many shards reach it in the same
+   *   level, and its parent is one move closer to the start word, so the parents lead back along a shortest path,
+   *   which is read one word at a time with STEP once the end word is visited.
+   *
+   *   The limits are checked before each level rather than each word, and a level is only expanded if all of it
+   *   fits in the expansions left, so a search may stop a little earlier than the single process search would.
+   */
+  public synchronized SearchResult findShortestPath(final String start, final String end, final QueryOptions options)
+      throws IOException
+  {
+    long startNanos = System.nanoTime();
+    CancellationToken token = options.getCancellationToken();
+    int expanded = 0;
+    int queued = 1;
+
+    int source = lookup(start);
+    int target = lookup(end);
+    if (source < 0 || target < 0)
+    {
+      return result(start, end, SearchResult.Status.NOT_IN_DICTIONARY, null, null, 0, 0, startNanos);
+    }
+    for (int s = 0; s < SHARDS; s++)
+    {
+      out[s].writeByte(ShardWorker.BEGIN);
+      out[s].writeInt(source);
+      out[s].flush();
+      frontier[s].clear();
+    }
+    if (source == target)
+    {
+      return result(start, end, SearchResult.Status.FOUND, null, toPath(source), 0, 1, startNanos);
+    }
+    frontier[ShardWorker.findShard(starts, source)].add(source);
+    int levelSize = 1;
+    int depth = 0; //Moves from the start word to the words of the level being expanded
+    while (levelSize > 0)
+    {
+      if (depth >= options.getMaxPathLength())
+      {
+        return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.PATH_LENGTH, null,
+            expanded, queued, startNanos);
+      }
+      if (levelSize > options.getMaxExpansions() - expanded)
+      {
+        return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.EXPANSIONS, null,
+            expanded, queued, startNanos);
+      }
+      if (token != null && token.isCancelled())
+      {
+        return result(start, end, SearchResult.Status.CANCELLED, null, null, expanded, queued, startNanos);
+      }
+      if (options.isTimedOut(startNanos))
+      {
+        return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.TIME, null, expanded,
+            queued, startNanos);
+      }
+      depth++;
+      expanded += levelSize;
+
+      for (int s = 0; s < SHARDS; s++)
+      {
+        next[s].clear();
+        routed[s].clear();
+        if (frontier[s].size() > 0)
+        {
+          out[s].writeByte(ShardWorker.EXPAND);
+          ShardWorker.writeIds(out[s], frontier[s].values(), frontier[s].size(), 1);
+          out[s].flush();
+        }
+      }
+      boolean reached = false;
+      for (int s = 0; s < SHARDS; s++)
+      {
+        if (frontier[s].size() > 0)
+        {
+          reached |= readFound(s, target);
+          int pairs = in[s].readInt();
+          for (int i = 0; i < pairs; i++)
+          {
+            int word = in[s].readInt();
+            int parent = in[s].readInt();
+            IntList owner = routed[ShardWorker.findShard(starts, word)];
+            owner.add(word);
+            owner.add(parent);
+          }
+        }
+      }
+      for (int s = 0; s < SHARDS; s++)
+      {
+        if (routed[s].size() > 0)
+        {
+          out[s].writeByte(ShardWorker.VISIT);
+          ShardWorker.writeIds(out[s], routed[s].values(), routed[s].size() / 2, 2);
+          out[s].flush();
+        }
+      }
+      for (int s = 0; s < SHARDS; s++)
+      {
+        if (routed[s].size() > 0)
+        {
+          reached |= readFound(s, target);
+        }
+      }
+
+      levelSize = 0;
+      for (int s = 0; s < SHARDS; s++)
+      {
+        IntList swap = frontier[s];
+        frontier[s] = next[s];
+        next[s] = swap;
+        levelSize += frontier[s].size();
+      }
+      queued += levelSize;
+      if (reached)
+      {
+        return result(start, end, SearchResult.Status.FOUND, null, toPath(target), expanded, queued, startNanos);
+      }
+    }
+    return result(start, end, SearchResult.Status.NO_PATH, null, null, expanded, queued, startNanos);
+  }
+
+  /*
+   * Reads the words a worker newly visited into the next level of its shard and returns true if the end word was
+   * one of them.
+   */
+  private boolean readFound(final int shard, final int target) throws IOException
+  {
+    boolean reached = false;
+    int count = in[shard].readInt();
+    for (int i = 0; i < count; i++)
+    {
+      int word = in[shard].readInt();
+      next[shard].add(word);
+      reached |= (word == target);
+    }
+    return reached;
+  }
+
+  /*
+   * Asks the owner of the word's length for the word's id, or returns -1 if no shard holds words that long.
+   */
+  private int lookup(final String word) throws IOException
+  {
+    String w = word.toLowerCase(Locale.ROOT);
+    int shard = ShardWorker.findShard(lengthStarts, w.length());
+    if (shard < 0)
+    {
+      return -1;
+    }
+    out[shard].writeByte(ShardWorker.LOOKUP);
+    out[shard].writeUTF(w);
+    out[shard].flush();
+    return in[shard].readInt();
+  }
+
+  /*
+   * Asks the owner of each word on the path for the word and its parent, from the end word back to the start word.
+   */
+  private List<String> toPath(final int last) throws IOException
+  {
+    LinkedList<String> path = new LinkedList<>();
+    for (int node = last; node >= 0; )
+    {
+      int shard = ShardWorker.findShard(starts, node);
+      out[shard].writeByte(ShardWorker.STEP);
+      out[shard].writeInt(node);
+      out[shard].flush();
+      node = in[shard].readInt();
+      path.addFirst(in[shard].readUTF());
+    }
+    return new ArrayList<>(path);
+  }
+
+  private static SearchResult result(final String start, final String end, final SearchResult.Status status,
+      final SearchResult.Budget budget, final List<String> path, final int expanded, final int queued,
+      final long startNanos)
+  {
+    return new SearchResult(start, end, status, budget, path, expanded, queued, System.nanoTime() - startNanos);
+  }
+
+  /*
+   * Tells the workers to exit and waits briefly for them, then stops any still running.
+   */
+  @Override
+  public synchronized void close()
+  {
+    for (int s = 0; s < SHARDS; s++)
+    {
+      if (sockets[s] == null)
+      {
+        continue;
+      }
+      try
+      {
+        out[s].writeByte(ShardWorker.CLOSE);
+        out[s].flush();
+        sockets[s].close();
+      }
+      catch (IOException e)
+      {
+        //The worker is already gone
+      }
+      sockets[s] = null;
+    }
+    for (Process worker: workers)
+    {
+      try
+      {
+        if (!worker.waitFor(CLOSE_WAIT_SECONDS, TimeUnit.SECONDS))
+        {
+          worker.destroyForcibly();
+        }
+      }
+      catch (InterruptedException e)
+      {
+        worker.destroyForcibly();
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /*
+   * A growable list of ints, reused from one level to the next.
+   */
+  private static class IntList
+  {
+    private int[] values = new int[16];
+    private int size = 0;
+
+    void add(final int value)
+    {
+      if (size == values.length)
+      {
+        values = Arrays.copyOf(values, 2 * size);
+      }
+      values[size++] = value;
+    }
+    void clear()
+    {
+      size = 0;
+    }
+    int size()
+    {
+      return size;
+    }
+    int[] values()
+    {
+      return values;
+    }
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int queries: The number of random queries to run
+   *   Outputs:
+   *     Each query whose result differs, and a summary
+   * Return Value:
+   *   The number of queries whose results differ
+   * Description:
+   *   Runs random queries on the shards and on a CompactWordGraph of the same dictionary in this process.  They
+   *   agree when both find no path, or both find paths of the same length and the sharded path starts and ends at
+   *   the right words and only moves along edges of the graph.
+   * Algorithm:
+   *   Half of the queries join two random words and half end at a word a short random walk from the start word, so
+   *   that both unconnected and connected pairs are checked.
+   */
+  private int verify(final String dictionaryPath, final int queries, final boolean compressed) throws IOException
+  {
+    CompactWordGraph local = new CompactWordGraph(dictionaryPath, compressed);
+    Adjacency adjacency = local.getAdjacency();
+    NeighborCursor cursor = adjacency.cursor();
+    QueryOptions options = new QueryOptions();
+    Random random = new Random(42);
+    int mismatches = 0;
+    int found = 0;
+    for (int q = 0; q < queries && local.size() > 0; q++)
+    {
+      int a = random.nextInt(local.size());
+      int b = a;
+      if (q % 2 == 0)
+      {
+        b = random.nextInt(local.size());
+      }
+      else
+      {
+        for (int step = 0; step < 6 && adjacency.degree(b) > 0; step++)
+        {
+          int pick = random.nextInt(adjacency.degree(b));
+          cursor.reset(b);
+          b = cursor.next();
+          for (int k = 0; k < pick; k++)
+          {
+            b = cursor.next();
+          }
+        }
+      }
+      String start = local.getWord(a);
+      String end = local.getWord(b);
+      SearchResult expected = ShortestPath.findShortestPath(start, end, local, options);
+      SearchResult actual = findShortestPath(start, end, options);
+      boolean same = expected.getStatus() == actual.getStatus();
+      if (same && actual.isFound())
+      {
+        found++;
+        List<String> path = actual.getPath();
+        same = path.size() == expected.getPath().size() && path.get(0).equals(start)
+            && path.get(path.size() - 1).equals(end);
+        for (int i = 1; same && i < path.size(); i++)
+        {
+          cursor.reset(local.indexOf(path.get(i - 1)));
+          same = cursor.advance(local.indexOf(path.get(i))) == local.indexOf(path.get(i));
+        }
+      }
+      if (!same)
+      {
+        mismatches++;
+        System.out.format("MISMATCH %s to %s: expected %s %s, sharded %s %s\n", start, end, expected.getStatus(),
+            expected.getPath(), actual.getStatus(), actual.getPath());
+      }
+    }
+    System.out.format("Verified %d queries, %d found paths, %d mismatches\n", queries, found, mismatches);
+    return mismatches;
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2)
+    {
+      System.out.println("Usage: ShardedShortestPath <dictionary> <shards> [--plain] [--heap size] [--verify queries]"
+          + " [start end]...");
+      return;
+    }
+    String dictionaryPath = args[0];
+    int shards = Integer.parseInt(args[1]);
+    boolean compressed = true;
+    String heap = null;
+    int verifyQueries = 0;
+    LinkedList<String> words = new LinkedList<>();
+    for (int i = 2; i < args.length; i++)
+    {
+      if (args[i].equals("--plain"))
+      {
+        compressed = false;
+      }
+      else if (args[i].equals("--heap") && i + 1 < args.length)
+      {
+        heap = args[++i];
+      }
+      else if (args[i].equals("--verify") && i + 1 < args.length)
+      {
+        verifyQueries = Integer.parseInt(args[++i]);
+      }
+      else
+      {
+        words.add(args[i]);
+      }
+    }
+    if (words.size() % 2 != 0)
+    {
+      System.out.println("Words must come in pairs of a start word and an end word.");
+      return;
+    }
+
+    int mismatches = 0;
+    try (ShardedShortestPath sharded = new ShardedShortestPath(dictionaryPath, shards, compressed, heap))
+    {
+      System.out.format("%d words and %d edges across %d shards, %d bytes of edges\n", sharded.size(),
+          sharded.getEdgeCount(), shards, sharded.getWorkerBytes());
+      while (!words.isEmpty())
+      {
+        String start = words.pop();
+        String end = words.pop();
+        SearchResult result = sharded.findShortestPath(start, end, new QueryOptions());
+        System.out.format("%s to %s: %s %s\n", start, end, result.getStatus(),
+            result.isFound() ? String.join(" ", result.getPath()) : "");
+      }
+      if (verifyQueries > 0)
+      {
+        mismatches = sharded.verify(dictionaryPath, verifyQueries, compressed);
+      }
+    }
+    if (mismatches > 0)
+    {
+      System.exit(1);
+    }
+  }
+}
@@ -9,14 +9,20 @@
 
 package edu.unm.shortest_path;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
 
 public class ShortestPath
 {
   private static final String ERROR_ARGS = "Incorrect number of arguments.  Arguments must contain a path to a dictionary followed by pairs of words";
+  private static final int CHECK_INTERVAL = 64; //Expansions between checks of the cancellation token and timeout, a power of two
+  //Scratches of finished searches, at most one per processor, so that idle or finished threads hold none
+  private static final ArrayBlockingQueue<BfsScratch> SCRATCH_POOL =
+      new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
 
   /*
    * Parameters:
@@ -30,26 +36,18 @@ public class ShortestPath
    * 	The WordNode of the last word in the path
    * Description:
    * 	Using the start and end words and the generated graph, the shortest path
-   * 	between the two words is found	
+   * 	between the two words is found with no limits on the search.
    * Algorithm:
-   * 	Using the start word, the associated WordNode is retrieved from the graph.
-   * 	The WordNode is added to a priority queue.  The list of connected words is
-   * 	retrieved from the WordNode, and each word is weighted using the Levenshtein distance 
-   * 	and the length of the path so far to that word.  All weighted words are added to the priority
-   * 	queue.  The top of the queue is pulled and parsed in the same way until the queue is empty and their
-   * 	is no path, or the end word is found.
+   * 	Runs the search with default QueryOptions and copies the path found onto the end word's WordNode.
    */
   public static WordNode findShortestPath(final String start, final String end, final WordGraph graph)
   {
-    LinkedList<WordNode> removedList = new LinkedList<>(); //Used to track removed words so their values can be reset before a new word pair
-    Comparator<WordNode> comparator = new WordNodeComparator();
-    PriorityQueue<WordNode> queue = new PriorityQueue<>(comparator);
-    
-    WordNode current = graph.getNode(start);
-    if (current == null || graph.getNode(end) == null)
+    SearchResult result = findShortestPath(start, end, graph, new QueryOptions());
+    if (result.getStatus() == SearchResult.Status.NOT_IN_DICTIONARY)
     {
+      WordNode startNode = graph.getNode(start);
       WordNode endNode = graph.getNode(end);
-      if (current == null && endNode == null)
+      if (startNode == null && endNode == null)
       {
         System.out.format("%s and %s not found in dictionary. \n", start, end);
       }
@@ -63,33 +61,275 @@ public class ShortestPath
       }
       return null;
     }
-    current.setSeen(true);
-    queue.add(current);
+    if (!result.isFound())
+    {
+      return null;
+    }
+    WordNode endNode = graph.getNode(end);
+    endNode.setWordPath(new LinkedList<String>(result.getPath()));
+    return endNode;
+  }
+  
+  /*
+   * Parameters:
+   * 	Inputs:
+   * 		String START: The word to start searching from
+   * 		String END: the word to find the shortest path to
+   * 		WordGraph graph: The graph of connected words to search through
+   * 		QueryOptions options: The time, expansion and path length limits of the search and its cancellation token
+   * 	Outputs:
+   * 		None
+   * Return Value:
+   * 	A SearchResult with the path, or the reason there is none, and statistics about the search
+   * Description:
+   * 	Using the start and end words and the generated graph, the shortest path
+   * 	between the two words is found	
+   * Algorithm:
+   * 	Using the start word, the associated WordNode is retrieved from the graph.
+   * 	The WordNode is added to a priority queue.  The list of connected words is
+   * 	retrieved from the WordNode, and each word is weighted using the Levenshtein distance 
+   * 	and the length of the path so far to that word.  All weighted words are added to the priority
+   * 	queue.  The top of the queue is pulled and parsed in the same way until the queue is empty and their
+   * 	is no path, or the end word is found.
+   * 	The weights and paths live in SearchEntry objects owned by the query, so the graph is only read and
+   * 	may be searched by several threads at once.
+   * 	Before each expansion the expansion budget is checked, and every CHECK_INTERVAL expansions the cancellation
+   * 	token and timeout are checked, so the checks cost little on the hot path.  Words already at the maximum path
+   * 	length are not expanded, and if any were skipped an empty queue means the budget ran out rather than that
+   * 	there is no path.
+   */
+  public static SearchResult findShortestPath(final String start, final String end, final WordGraph graph,
+      final QueryOptions options)
+  {
+    long startNanos = System.nanoTime();
+    CancellationToken token = options.getCancellationToken();
+    int expanded = 0;
+    boolean pruned = false; //Set when a word was not expanded because of the path length limit
+    
+    HashSet<WordNode> seen = new HashSet<>(); //Words already added to the queue by this query
+    PriorityQueue<SearchEntry> queue = new PriorityQueue<>(new SearchEntryComparator());
+    
+    WordNode startNode = graph.findNode(start);
+    WordNode endNode = graph.findNode(end);
+    if (startNode == null || endNode == null)
+    {
+      return new SearchResult(start, end, SearchResult.Status.NOT_IN_DICTIONARY, null, null, 0, 0,
+          System.nanoTime() - startNanos);
+    }
+    char[] target = end.toCharArray();
+    seen.add(startNode);
+    queue.add(new SearchEntry(startNode, null, 0));
     while (!queue.isEmpty())
     {
-      current = queue.peek();
-      if (current.getName().equalsIgnoreCase(end))
+      SearchEntry current = queue.poll();
+      if (current.getNode() == endNode)
+      {
+        return result(start, end, SearchResult.Status.FOUND, null, toPath(current), expanded, seen.size(), startNanos);
+      }
+      if (expanded >= options.getMaxExpansions())
       {
-        for(WordNode node: removedList)
+        return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.EXPANSIONS, null, expanded,
+            seen.size(), startNanos);
+      }
+      if ((expanded & (CHECK_INTERVAL - 1)) == 0)
+      {
+        if (token != null && token.isCancelled())
         {
-          node.setSeen(false);
+          return result(start, end, SearchResult.Status.CANCELLED, null, null, expanded, seen.size(), startNanos);
         }
-        for(WordNode node: queue)
+        if (options.isTimedOut(startNanos))
         {
-          node.setSeen(false);
+          return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.TIME, null, expanded,
+              seen.size(), startNanos);
         }
-        current.addToPath(current.getName());
-        return current;
       }
-            
-      updateQueue(current.getShorterList(), current, queue, end);
-      updateQueue(current.getSameList(), current, queue, end);
-      updateQueue(current.getLongerList(), current, queue, end);
       
-      removedList.add(current);
-      queue.remove(current);
+      if (current.getDepth() < options.getMaxPathLength())
+      {
+        WordNode node = current.getNode();
+        updateQueue(node.getShorterList(), current, queue, seen, target);
+        updateQueue(node.getSameList(), current, queue, seen, target);
+        updateQueue(node.getLongerList(), current, queue, seen, target);
+      }
+      else
+      {
+        pruned = true;
+      }
+      expanded++;
+    }
+    if (pruned)
+    {
+      return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.PATH_LENGTH, null, expanded,
+          seen.size(), startNanos);
+    }
+    return result(start, end, SearchResult.Status.NO_PATH, null, null, expanded, seen.size(), startNanos);
+  }
+  
+  /*
+   * Parameters:
+   * 	Inputs:
+   * 		String START: The word to start searching from
+   * 		String END: the word to find the shortest path to
+   * 		IndexedWordGraph graph: The graph of connected words to search through
+   * 		QueryOptions options: The time, expansion and path length limits of the search and its cancellation token
+   * 	Outputs:
+   * 		None
+   * Return Value:
+   * 	A SearchResult with the path, or the reason there is none, and statistics about the search
+   * Description:
+   * 	Finds a shortest path between the two words in a CompactWordGraph or any other IndexedWordGraph.
+   * Algorithm:
+   * 	A breadth first search over word ids, one level at a time, stopping as soon as the end word is reached.
+   * 	The visited marks, parents and queue come from a BfsScratch taken from a small pool and returned to it when
+   * 	the search ends, and one NeighborCursor walks the neighbors of every word expanded, so the search allocates
+   * 	nothing per word.  A scratch is made when the pool is empty and dropped when it is full, so the pool never
+   * 	holds more scratches than there are processors however many threads search.  The limits of the options are
+   * 	checked as in the WordGraph search.
+   */
+  public static SearchResult findShortestPath(final String start, final String end, final IndexedWordGraph graph,
+      final QueryOptions options)
+  {
+    BfsScratch scratch = SCRATCH_POOL.poll();
+    if (scratch == null)
+    {
+      scratch = new BfsScratch(false);
+    }
+    try
+    {
+      return search(start, end, graph, options, scratch);
+    }
+    finally
+    {
+      SCRATCH_POOL.offer(scratch);
+    }
+  }
+  
+  /*
+   * The breadth first search of findShortestPath over an IndexedWordGraph, leaving its marks in the given scratch.
+   */
+  static SearchResult search(final String start, final String end, final IndexedWordGraph graph,
+      final QueryOptions options, final BfsScratch scratch)
+  {
+    long startNanos = System.nanoTime();
+    CancellationToken token = options.getCancellationToken();
+    int expanded = 0;
+    
+    int source = graph.indexOf(start);
+    int target = graph.indexOf(end);
+    if (source < 0 || target < 0)
+    {
+      return result(start, end, SearchResult.Status.NOT_IN_DICTIONARY, null, null, 0, 0, startNanos);
+    }
+    scratch.begin(graph.size());
+    int[] queue = scratch.getQueue();
+    NeighborCursor cursor = graph.getAdjacency().cursor();
+    scratch.visit(source, -1, 0);
+    queue[0] = source;
+    int head = 0;
+    int tail = 1;
+    int levelEnd = 1; //One past the last queued word of the current level
+    int depth = 0; //Moves from the start word to the words of the current level
+    if (source == target)
+    {
+      return result(start, end, SearchResult.Status.FOUND, null, toPath(graph, scratch, target), 0, tail, startNanos);
+    }
+    while (head < tail)
+    {
+      if (head == levelEnd)
+      {
+        depth++;
+        levelEnd = tail;
+      }
+      if (depth >= options.getMaxPathLength())
+      {
+        return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.PATH_LENGTH, null,
+            expanded, tail, startNanos);
+      }
+      if (expanded >= options.getMaxExpansions())
+      {
+        return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.EXPANSIONS, null, expanded,
+            tail, startNanos);
+      }
+      if ((expanded & (CHECK_INTERVAL - 1)) == 0)
+      {
+        if (token != null && token.isCancelled())
+        {
+          return result(start, end, SearchResult.Status.CANCELLED, null, null, expanded, tail, startNanos);
+        }
+        if (options.isTimedOut(startNanos))
+        {
+          return result(start, end, SearchResult.Status.BUDGET_EXCEEDED, SearchResult.Budget.TIME, null, expanded,
+              tail, startNanos);
+        }
+      }
+      int node = queue[head++];
+      expanded++;
+      cursor.reset(node);
+      for (int next = cursor.next(); next >= 0; next = cursor.next())
+      {
+        if (scratch.visit(next, node, depth + 1))
+        {
+          if (next == target)
+          {
+            return result(start, end, SearchResult.Status.FOUND, null, toPath(graph, scratch, target), expanded,
+                tail + 1, startNanos);
+          }
+          queue[tail++] = next;
+        }
+      }
+    }
+    return result(start, end, SearchResult.Status.NO_PATH, null, null, expanded, tail, startNanos);
+  }
+  
+  private static SearchResult result(final String start, final String end, final SearchResult.Status status,
+      final SearchResult.Budget budget, final List<String> path, final int expanded, final int queued,
+      final long startNanos)
+  {
+    return new SearchResult(start, end, status, budget, path, expanded, queued, System.nanoTime() - startNanos);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     SearchEntry last: The entry of the end word
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The words from the start word to the end word
+   * Description:
+   *   Follows the parent links of the entries back to the start word.
+   */
+  private static List<String> toPath(final SearchEntry last)
+  {
+    LinkedList<String> path = new LinkedList<>();
+    for (SearchEntry entry = last; entry != null; entry = entry.getParent())
+    {
+      path.addFirst(entry.getNode().getName());
+    }
+    return new ArrayList<>(path);
+  }
+  
+  /*
+   * Parameters:
+   *   Inputs:
+   *     IndexedWordGraph graph: The graph that was searched
+   *     BfsScratch scratch: The parents recorded by the search
+   *     int last: The id of the end word
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The words from the start word to the end word
+   * Description:
+   *   Follows the recorded parents back to the start word.
+   */
+  private static List<String> toPath(final IndexedWordGraph graph, final BfsScratch scratch, final int last)
+  {
+    LinkedList<String> path = new LinkedList<>();
+    for (int node = last; node >= 0; node = scratch.getParent(node))
+    {
+      path.addFirst(graph.getWord(node));
     }
-    return null;
+    return new ArrayList<>(path);
   }
   
   /*
@@ -156,36 +396,32 @@ public class ShortestPath
    * Parameters:
    *   Inputs:
    *     List<WordNode> list: The list containing the nodes to be added
-   *     WordNode current: The current word node
-   *     PriorityQueue<WordNode> queue: The queue to be updated
-   *     String END: The word to get to
+   *     SearchEntry current: The entry of the current word node
+   *     PriorityQueue<SearchEntry> queue: The queue to be updated
+   *     HashSet<WordNode> seen: The words this query has already queued
+   *     char[] end: The word to get to
    *   Outputs:
    *     None
    * Return Value:
    *   void
    * Description:
-   *   Checks each 
    *   Looks at and adds every new node to the queue after calculating its weight.
    * Algorithm:
    *   For each node in the list, if it is new (not seen) its weight is calculated as the sum of its Levenshtein distance and path
    *   length up to this point.  It is added to the queue, inserted by weight, and marked as seen so as not to be added to the queue
    *   again.
    */
-  private static void updateQueue(final List<WordNode> list, final WordNode current, final PriorityQueue<WordNode> queue, final String end)
+  private static void updateQueue(final List<WordNode> list, final SearchEntry current, final PriorityQueue<SearchEntry> queue,
+      final HashSet<WordNode> seen, final char[] end)
   {
     int lWeight; //The Levenshtein distance between the two words
-    int pathLength; //Number of step up to this point
+    int pathLength = current.getDepth() + 1; //Number of step up to this point
     for(WordNode node: list)
     {
-      if (!node.getSeen())
+      if (seen.add(node))
       { 
-        node.setWordPath(new LinkedList<String>(current.getWordPath()));
-        node.addToPath(current.getName());
-        lWeight = getLevenshteinDistance(node.getName().toCharArray(), end.toCharArray());
-        pathLength = node.getWordPath().size();
-        node.setWeight(lWeight + pathLength);
-        node.setSeen(true);
-        queue.add(node);
+        lWeight = getLevenshteinDistance(node.getName().toCharArray(), end);
+        queue.add(new SearchEntry(node, current, lWeight + pathLength));
       }
     }
   }
@@ -229,7 +465,7 @@ public class ShortestPath
       return;
     }
     System.out.println("Graph generation started...");
-    HashGraph graph = new HashGraph(12, argList.pop());
+    HashGraph graph = new HashGraph(argList.pop());
 //    while (!argList.isEmpty())
 //    {
 //      w1 = argList.pop();
@@ -0,0 +1,301 @@
+/*
+ * Nicholas Spurlock
+ *
+ * Writes a reproducible dictionary of made up words for measuring how the graphs scale.  The same seed and
+ * settings always give the same file.  Word lengths follow a weighted distribution and letters come from a chosen
+ * alphabet.  The edge density is the chance that a new word is a one letter edit of a recently made word rather
+ * than a random one, so a higher density gives more connected words and longer ladders.
+ *
+ * Usage: SyntheticDictionary <output> <size> [seed] [density] [alphabet] [lengths]
+ *   lengths is a list of length:weight pairs such as 3:1,4:4,5:9, and defaults to the lengths of English words.
+ */
+
+package edu.unm.shortest_path;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Random;
+
+public class SyntheticDictionary
+{
+  public static final String DEFAULT_ALPHABET = "abcdefghijklmnopqrstuvwxyz";
+  private static final int RECENT_SIZE = 1 << 16; //Recently made words that new words may be edits of
+  private static final int MAX_ATTEMPTS_PER_WORD = 100; //Gives up when the settings cannot make enough distinct words
+
+  private final long SEED;
+  private final int SIZE;
+  private final char[] ALPHABET;
+  private final double[] CUMULATIVE; //CUMULATIVE[l] is the chance a random word is at most l letters long
+  private final double EDGE_DENSITY;
+
+  public SyntheticDictionary(final long seed, final int size, final String alphabet, final double[] lengthWeights,
+      final double edgeDensity)
+  {
+    if (size < 0)
+    {
+      throw new IllegalArgumentException("size must not be negative: " + size);
+    }
+    if (edgeDensity < 0 || edgeDensity > 1)
+    {
+      throw new IllegalArgumentException("edgeDensity must be between 0 and 1: " + edgeDensity);
+    }
+    this.SEED = seed;
+    this.SIZE = size;
+    this.ALPHABET = alphabet.toLowerCase(Locale.ROOT).chars().distinct().collect(StringBuilder::new,
+        StringBuilder::appendCodePoint, StringBuilder::append).toString().toCharArray();
+    if (ALPHABET.length == 0)
+    {
+      throw new IllegalArgumentException("alphabet must not be empty");
+    }
+    this.CUMULATIVE = new double[lengthWeights.length];
+    double total = 0;
+    for (int length = 1; length < lengthWeights.length; length++)
+    {
+      total += lengthWeights[length];
+      CUMULATIVE[length] = total;
+    }
+    if (total <= 0)
+    {
+      throw new IllegalArgumentException("lengthWeights must give some length of at least 1 a positive weight");
+    }
+    for (int length = 0; length < CUMULATIVE.length; length++)
+    {
+      CUMULATIVE[length] /= total;
+    }
+    this.EDGE_DENSITY = edgeDensity;
+  }
+
+  /*
+   * The share of each word length in OpenEnglishWordList.txt, indexed by length.
+   */
+  public static double[] englishLengths()
+  {
+    return new double[] {0, 2, 106, 1083, 4447, 9634, 16222, 22925, 26266, 25633, 22684};
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String lengths: A list of length:weight pairs such as 3:1,4:4,5:9
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   The weights indexed by length
+   */
+  public static double[] parseLengths(final String lengths)
+  {
+    String[] pairs = lengths.split(",");
+    int max = 0;
+    for (String pair: pairs)
+    {
+      max = Math.max(max, Integer.parseInt(pair.split(":")[0].trim()));
+    }
+    double[] weights = new double[max + 1];
+    for (String pair: pairs)
+    {
+      String[] parts = pair.split(":");
+      if (parts.length != 2)
+      {
+        throw new IllegalArgumentException("Expected length:weight but found " + pair);
+      }
+      weights[Integer.parseInt(parts[0].trim())] = Double.parseDouble(parts[1].trim());
+    }
+    return weights;
+  }
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String path: Where to write the dictionary
+   *   Outputs:
+   *     A file of SIZE distinct words, one per line
+   * Return Value:
+   *   void
+   * Description:
+   *   Makes the words and writes them in the order they were made.  The file appears at path only once it is
+   *   complete, so a run that fails or is stopped part way never leaves a short dictionary there to be reused.
+   * Algorithm:
+   *   Each word is either a random word, with a length drawn from the distribution, or, with chance EDGE_DENSITY,
+   *   a substitution, insertion or deletion of one letter in a word picked from the last RECENT_SIZE words made.
+   *   Only a 64 bit hash of each word is kept to reject duplicates, so ten million words need a few hundred
+   *   megabytes at most.  A word whose hash collides with an earlier word is treated as a duplicate and replaced.
+   *   The words go to a temporary file in the same directory, which is moved to path when it is complete and
+   *   deleted if anything fails first.
+   */
+  public void write(final String path) throws IOException
+  {
+    Random random = new Random(SEED);
+    String[] recent = new String[RECENT_SIZE];
+    int made = 0;
+    long attempts = 0;
+    HashSet64 hashes = new HashSet64(SIZE);
+    Path target = Paths.get(path).toAbsolutePath();
+    //Named for this process so concurrent runs do not share it, and not made by createTempFile so the dictionary
+    //gets the same permissions as any other new file
+    Path temp = target.resolveSibling(target.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+    boolean moved = false;
+    try
+    {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8))
+      {
+        while (made < SIZE)
+        {
+          if (++attempts > (long)SIZE * MAX_ATTEMPTS_PER_WORD)
+          {
+            throw new IllegalArgumentException("Could only make " + made + " distinct words of the " + SIZE
+                + " asked for with this alphabet and these lengths");
+          }
+          String word = (made > 0 && random.nextDouble() < EDGE_DENSITY)
+              ? edit(recent[random.nextInt(Math.min(made, RECENT_SIZE))], random)
+              : randomWord(random);
+          if (word.isEmpty() || !hashes.add(hash(word)))
+          {
+            continue;
+          }
+          recent[made & (RECENT_SIZE - 1)] = word;
+          made++;
+          writer.write(word);
+          writer.newLine();
+        }
+      }
+      try
+      {
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      }
+      catch (AtomicMoveNotSupportedException e)
+      {
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      moved = true;
+    }
+    finally
+    {
+      if (!moved)
+      {
+        Files.deleteIfExists(temp);
+      }
+    }
+  }
+
+  private String randomWord(final Random random)
+  {
+    double r = random.nextDouble();
+    int length = 1;
+    while (length < CUMULATIVE.length - 1 && CUMULATIVE[length] <= r)
+    {
+      length++;
+    }
+    char[] word = new char[length];
+    for (int i = 0; i < length; i++)
+    {
+      word[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+    }
+    return new String(word);
+  }
+
+  /*
+   * Returns a substitution, insertion or deletion of one letter of word.  Deletions are not made of one letter
+   * words and insertions are not made of words already as long as the longest length in the distribution.
+   */
+  private String edit(final String word, final Random random)
+  {
+    StringBuilder sb = new StringBuilder(word);
+    int kind = random.nextInt(3);
+    if (kind == 1 && word.length() + 1 >= CUMULATIVE.length)
+    {
+      kind = 0;
+    }
+    if (kind == 2 && word.length() == 1)
+    {
+      kind = 0;
+    }
+    char c = ALPHABET[random.nextInt(ALPHABET.length)];
+    if (kind == 0)
+    {
+      sb.setCharAt(random.nextInt(word.length()), c);
+    }
+    else if (kind == 1)
+    {
+      sb.insert(random.nextInt(word.length() + 1), c);
+    }
+    else
+    {
+      sb.deleteCharAt(random.nextInt(word.length()));
+    }
+    return sb.toString();
+  }
+
+  /*
+   * FNV-1a over the characters of the word followed by a final mix of the bits.
+   */
+  private static long hash(final String word)
+  {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < word.length(); i++)
+    {
+      h ^= word.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    return h;
+  }
+
+  /*
+   * An open addressing set of longs.  Zero marks an empty slot, so a hash of zero is stored as one.
+   */
+  private static class HashSet64
+  {
+    private final long[] slots;
+    private final int mask;
+
+    HashSet64(final int expected)
+    {
+      int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+      slots = new long[capacity];
+      mask = capacity - 1;
+    }
+
+    boolean add(long value)
+    {
+      if (value == 0)
+      {
+        value = 1;
+      }
+      int i = (int)value & mask;
+      while (slots[i] != 0)
+      {
+        if (slots[i] == value)
+        {
+          return false;
+        }
+        i = (i + 1) & mask;
+      }
+      slots[i] = value;
+      return true;
+    }
+  }
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 2)
+    {
+      System.out.println("Usage: SyntheticDictionary <output> <size> [seed] [density] [alphabet] [lengths]");
+      return;
+    }
+    int size = Integer.parseInt(args[1]);
+    long seed = (args.length > 2) ? Long.parseLong(args[2]) : 42L;
+    double density = (args.length > 3) ? Double.parseDouble(args[3]) : 0.5;
+    String alphabet = (args.length > 4) ? args[4] : DEFAULT_ALPHABET;
+    double[] lengths = (args.length > 5) ? parseLengths(args[5]) : englishLengths();
+    new SyntheticDictionary(seed, size, alphabet, lengths, density).write(args[0]);
+  }
+}
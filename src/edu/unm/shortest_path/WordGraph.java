@@ -7,24 +7,17 @@
 
 package edu.unm.shortest_path;
 
-import java.io.BufferedReader;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.TreeMap;
 
-public class WordGraph
+public class WordGraph implements WordSink
 {
-  private final int MAX_WORD_LENGTH;
-  private final int MAX_LIST_SIZE; //A list size max used to avoid thousands of list copies cause by list expansion. Trading memory for time.
-  private ArrayList<ArrayList<WordNode>> graph;
+  private TreeMap<Integer, ArrayList<WordNode>> graph; //Words by length, with a list only for lengths that occur
  
-  public WordGraph(final int maxWordLength, final String dictionaryPath)
+  public WordGraph(final String dictionaryPath)
   {
-    this.MAX_WORD_LENGTH = maxWordLength;
-    this.MAX_LIST_SIZE = 30000;
-    graph = new ArrayList<ArrayList<WordNode>>(MAX_WORD_LENGTH + 1);
-    initGraph();
+    graph = new TreeMap<Integer, ArrayList<WordNode>>();
     generateGraph(dictionaryPath);
   }
   
@@ -43,12 +36,40 @@ public class WordGraph
    */
   public WordNode getNode(final String name)
   {
-    for (WordNode n: graph.get(name.length()))
+    WordNode n = findNode(name);
+    if (n != null)
+    {
+      //Insures we start an empty list, not necessary for weights as they are recalculated each time
+      n.getWordPath().clear();
+    }
+    return n;
+  }
+  
+  /*
+   * Parameters:
+   * 	Inputs:
+   * 		String name: The name of the WordNode to be returned
+   * 	Outputs:
+   * 		None
+   * Return Value:
+   * 	WordNode n, or null if name is not in the dictionary
+   * Description:
+   * 	Returns the WordNode associated with name without changing it, so it is safe to call while other
+   * 	threads are searching the graph.
+   * Algorithm:
+   * 	Searches the list of words with the same length as name
+   */
+  public WordNode findNode(final String name)
+  {
+    ArrayList<WordNode> list = graph.get(name.length());
+    if (list == null)
+    {
+      return null;
+    }
+    for (WordNode n: list)
     {
       if (n.getName().equalsIgnoreCase(name))
       {
-        //Insures we start an empty list, not necessary for weights as they are recalculated each time
-        n.getWordPath().clear();
         return n;
       }
     }
@@ -71,7 +92,7 @@ public class WordGraph
   @SuppressWarnings("unused")
   private void printGraph()
   {
-    for (ArrayList<WordNode> list: graph)
+    for (ArrayList<WordNode> list: graph.values())
     {
       for (WordNode node: list)
       {
@@ -155,7 +176,7 @@ public class WordGraph
   /*
    * Parameters:
    * 	Inputs: 
-   * 		None
+   * 		int[] bucketSizes: The number of words of each length in the dictionary
    * 	Outputs:
    * 		None
    * Return Value:
@@ -163,84 +184,98 @@ public class WordGraph
    * Description:
    * 		Initializes the lists used in the graph
    * Algorithm:
-   * 		Adds entry for each word length and initializes the list
+   * 		Adds entry for each word length and initializes the list to the number of words of that length
    */		
-  private void initGraph()
+  @Override
+  public void initBuckets(final int[] bucketSizes)
   {
-    graph = new ArrayList<ArrayList<WordNode>>(MAX_WORD_LENGTH + 1);
-    //Initialize all lists in the graph from length 0 to max length + 1. The additional spot allows the use of word lengths and indices
-    for( int i = 0; i < MAX_WORD_LENGTH + 1; i++)
+    graph = new TreeMap<Integer, ArrayList<WordNode>>();
+    //One list per length that occurs, so a dictionary with a few long words does not need a list for every length
+    for (int i = 0; i < bucketSizes.length; i++)
     {
-      graph.add(new ArrayList<WordNode>(MAX_LIST_SIZE));
+      if (bucketSizes[i] > 0)
+      {
+        graph.put(i, new ArrayList<WordNode>(bucketSizes[i]));
+      }
     }
   }
   
   /*
    * Parameters:
    * 	Inputs:
-   * 		String path: The path to the dictionary
+   * 		String word: The word to add to the graph
    * 	Outputs:
    * 		None
    * Return Value:
    * 		void
    * Description:
-   * 		Reads through a text file of words(dictionary) it generates a graph of words connected by one legal move.
+   * 		Creates a WordNode for the word and connects it to every word already in the graph within one legal move.
    * Algorithm:
-   * 		For each word in the dictionary a WordNode is created and lists of words one letter less, the same length, and one letter more
-   * 		are retrieved from a HashMap.  Each list is iterated over and each new word from the dictionary is checked against
-   * 		every word from the lists.  If a connection is found between the words they are added to the appropriate list of each
-   * 		WordNode.  The new WordNode is then added to the HashMap
+   * 		Lists of words one letter less, the same length, and one letter more are retrieved from the graph.  Each
+   * 		list is iterated over and the new word is checked against every word from the lists.  If a connection is
+   * 		found between the words they are added to the appropriate list of each WordNode.  The new WordNode is then
+   * 		added to the graph
    */
-  private void generateGraph(final String path)
+  @Override
+  public void addWord(final String word)
   {
-    //TimerThread thread = new TimerThread("TimerThread");
-    
-    FileInputStream fin = null;
-    try
+    int length = word.length();
+    WordNode newNode = new WordNode(word, length);
+    //Words added after loading may be of a length not in the dictionary
+    ArrayList<WordNode> sameLength = graph.computeIfAbsent(length, key -> new ArrayList<WordNode>());
+    for (int i = length - 1; i < length + 2; i++)
     {
-      String word = null;
-      fin = new FileInputStream(path);
-      InputStreamReader reader = new InputStreamReader(fin);
-      BufferedReader buffReader = new BufferedReader(reader);
-      
-      //Read each word until we've read them all
-      while ((word = buffReader.readLine()) != null)
+      //No words of this length, such as shorter than a single letter word, so skip
+      ArrayList<WordNode> list = graph.get(i);
+      if (list == null) 
       {
-        int length = word.length();
-        WordNode newNode = new WordNode(word, length);
-        for (int i = length - 1; i < length + 2; i++)
+        continue;
+      }
+      for (WordNode node: list)
+      {
+        //Check if there is an edge between the new word and existing words
+        if (isConnected(word, node.getName(), (length - i)))
         {
-          //Single letter word, no smaller-length list so skip
-          if (i < 1 || i > MAX_WORD_LENGTH) 
+          if (i == length)
           {
-            continue;
+            newNode.getSameList().add(node);
+            node.getSameList().add(newNode);
           }
-          for (WordNode node: graph.get(i))
+          else if(i < length)
           {
-            //Check if there is an edge between the new word and existing words
-            if (isConnected(word, node.getName(), (length - i)))
-            {
-              if (i == length)
-              {
-                newNode.getSameList().add(node);
-                node.getSameList().add(newNode);
-              }
-              else if(i < length)
-              {
-                newNode.getShorterList().add(node);
-                node.getLongerList().add(newNode);
-              }
-              else
-              {
-                newNode.getShorterList().add(node);
-                node.getLongerList().add(newNode);
-              }
-            }
+            newNode.getShorterList().add(node);
+            node.getLongerList().add(newNode);
+          }
+          else
+          {
+            newNode.getLongerList().add(node);
+            node.getShorterList().add(newNode);
           }
         }
-        graph.get(length).add(newNode);
       }
-      fin.close();
+    }
+    sameLength.add(newNode);
+  }
+  
+  /*
+   * Parameters:
+   * 	Inputs:
+   * 		String path: The path to the dictionary
+   * 	Outputs:
+   * 		None
+   * Return Value:
+   * 		void
+   * Description:
+   * 		Reads through a text file of words(dictionary) it generates a graph of words connected by one legal move.
+   * Algorithm:
+   * 		DictionaryLoader reads the dictionary and hands each distinct word to addWord, after initBuckets has sized
+   * 		the graph by the word lengths it found.
+   */
+  private void generateGraph(final String path)
+  {
+    try
+    {
+      DictionaryLoader.load(path, this);
     } 
     catch (IOException e)
     {
@@ -19,9 +19,6 @@ public class WordNode
   private ArrayList<WordNode> longerList;
   private ArrayList<WordNode> shorterList;
   private LinkedList<String> wordPath;
-  
-  private boolean seen; //Denotes whether a word has been seen before to prevent another addition to the queue
-  private int weight; //Sum of Levenshtein distance and path length
  
   public WordNode(String name, int length)
   {
@@ -31,8 +28,6 @@ public class WordNode
     longerList = new ArrayList<>();
     shorterList = new ArrayList<>();
     wordPath = new LinkedList<>();
-    seen = false;
-    weight = 0;
   }
   
   public void addToPath(final String s)
@@ -55,10 +50,6 @@ public class WordNode
   {
     return this.sameList;
   }
-  public boolean getSeen()
-  {
-    return this.seen;
-  }
   public ArrayList<WordNode> getShorterList()
   {
     return this.shorterList;
@@ -67,10 +58,6 @@ public class WordNode
   {
     return this.wordPath;
   }
-  public int getWeight()
-  {
-    return this.weight;
-  }
   public void printEdges()
   {
     for (WordNode node: shorterList)
@@ -86,14 +73,6 @@ public class WordNode
       System.out.println(node.getName());
     }
   }
-  public void setSeen(final boolean s)
-  {
-    this.seen = s;
-  }
-  public void setWeight(final int w)
-  {
-    this.weight = w;
-  }
   public void setWordPath(final LinkedList<String> list)
   {
     this.wordPath = list;
@@ -0,0 +1,34 @@
+/*
+ * Nicholas Spurlock
+ * 
+ * A start word and an end word to find the shortest path between.  Used as the input of QueryProcessor.
+ */
+
+package edu.unm.shortest_path;
+
+public class WordPair
+{
+  private final String START;
+  private final String END;
+  
+  public WordPair(final String start, final String end)
+  {
+    this.START = start;
+    this.END = end;
+  }
+  
+  public String getEnd()
+  {
+    return this.END;
+  }
+  public String getStart()
+  {
+    return this.START;
+  }
+  
+  @Override
+  public String toString()
+  {
+    return START + " -> " + END;
+  }
+}
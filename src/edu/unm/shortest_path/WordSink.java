@@ -0,0 +1,40 @@
+/*
+ * Nicholas Spurlock
+ *
+ * This interface is implemented by the graphs that are built from a dictionary.  DictionaryLoader reads the whole
+ * dictionary into buffers by word length, then sorts and deduplicates them and hands the words to a WordSink one
+ * at a time, so the graph never has to hold, sort or deduplicate the raw lines itself.  The sink does not see any
+ * word until the whole file has been read.
+ */
+
+package edu.unm.shortest_path;
+
+public interface WordSink
+{
+  /*
+   * Parameters:
+   *   Inputs:
+   *     int[] bucketSizes: The number of distinct words of each length, indexed by word length
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Called once before any word is added so the sink can size its storage from the lengths actually
+   *   found in the dictionary.  The longest word in the dictionary has length bucketSizes.length - 1.
+   */
+  void initBuckets(final int[] bucketSizes);
+
+  /*
+   * Parameters:
+   *   Inputs:
+   *     String word: A lowercase word that has not been handed to the sink before
+   *   Outputs:
+   *     None
+   * Return Value:
+   *   void
+   * Description:
+   *   Adds a word to the sink.  Words arrive grouped by length, shortest first, and sorted within each length.
+   */
+  void addWord(final String word);
+}